@@ -0,0 +1,85 @@
+package com.raistlin.swipeactions.benchmark;
+
+import com.raistlin.swipeactions.DragPhysics;
+import com.raistlin.swipeactions.LookupTableDragPhysics;
+import com.raistlin.swipeactions.TensionDragPhysics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-move-event cost of the drag curve. Each invocation feeds a whole
+ * synthetic swipe stream, so the reported score is ns/event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragPhysicsBenchmark {
+
+    private static final int EVENTS = 256;
+
+    // Typical xxhdpi values: 64dp trigger distance at density 3
+    private static final float TRIGGER_DISTANCE = 192f;
+    private static final float FINAL_OFFSET = 192f;
+
+    @Param({"tension", "lookup"})
+    public String physics;
+
+    @Param({"slow", "fling", "aborted"})
+    public String stream;
+
+    private DragPhysics mPhysics;
+    private final float[] mDragDistances = new float[EVENTS];
+
+    @Setup
+    public void setUp() {
+        mPhysics = "lookup".equals(physics) ? new LookupTableDragPhysics() : new TensionDragPhysics();
+        mPhysics.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        for (int i = 0; i < EVENTS; i++) {
+            final float progress = (float) i / (EVENTS - 1);
+            switch (stream) {
+                case "slow":
+                    // Steady drag to twice the trigger distance
+                    mDragDistances[i] = progress * TRIGGER_DISTANCE * 4;
+                    break;
+                case "fling":
+                    // Most of the distance is covered in the first few events
+                    mDragDistances[i] = (1 - (1 - progress) * (1 - progress) * (1 - progress)) * TRIGGER_DISTANCE * 8;
+                    break;
+                case "aborted":
+                    // Out past the trigger point and back again
+                    mDragDistances[i] = (progress < .5f ? progress : 1 - progress) * TRIGGER_DISTANCE * 6;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown stream " + stream);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void moveEvents(Blackhole blackhole) {
+        final DragPhysics physics = mPhysics;
+        final float[] dragDistances = mDragDistances;
+        for (int i = 0; i < EVENTS; i++) {
+            final float overscroll = physics.getOverscroll(dragDistances[i]);
+            blackhole.consume(physics.getIndicatorOffset(overscroll));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.raistlin.swipeactions.benchmark;
+
+import com.raistlin.swipeactions.SwipeGestureStateMachine;
+import com.raistlin.swipeactions.TensionDragPhysics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the gesture state machine for a whole synthetic swipe: a down,
+ * a mostly horizontal drag past the trigger point and a release. The reported score is
+ * ns/event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwipeGestureBenchmark {
+
+    private static final int MOVES = 64;
+
+    // Typical xxhdpi values: 8dp touch slop and 64dp trigger distance at density 3
+    private static final int TOUCH_SLOP = 24;
+    private static final float TRIGGER_DISTANCE = 192f;
+    private static final float FINAL_OFFSET = 192f;
+
+    private SwipeGestureStateMachine mGesture;
+    private final float[] mX = new float[MOVES];
+    private final float[] mY = new float[MOVES];
+
+    @Setup
+    public void setUp() {
+        final TensionDragPhysics physics = new TensionDragPhysics();
+        physics.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        mGesture = new SwipeGestureStateMachine(TOUCH_SLOP, TRIGGER_DISTANCE, physics);
+        mGesture.setFlingVelocity(3000);
+        for (int i = 0; i < MOVES; i++) {
+            mX[i] = 100 + i * TRIGGER_DISTANCE * 4 / MOVES;
+            // A little vertical jitter, well within the axis lock
+            mY[i] = 500 + (i % 3);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES + 2)
+    public void swipe(Blackhole blackhole) {
+        final SwipeGestureStateMachine gesture = mGesture;
+        long time = 0;
+        gesture.onTouchEvent(SwipeGestureStateMachine.ACTION_DOWN, time, 0, 100, 500);
+        for (int i = 0; i < MOVES; i++) {
+            time += 8;
+            if (gesture.onTouchEvent(SwipeGestureStateMachine.ACTION_MOVE, time, 0, mX[i], mY[i])
+                    == SwipeGestureStateMachine.RESULT_DRAGGED) {
+                blackhole.consume(gesture.isArmed(gesture.getDragDistance()));
+            }
+        }
+        if (gesture.onTouchEvent(SwipeGestureStateMachine.ACTION_UP, time, 0, mX[MOVES - 1], mY[MOVES - 1])
+                == SwipeGestureStateMachine.RESULT_RELEASED) {
+            blackhole.consume(gesture.shouldTrigger(gesture.getDragDistance(), 0));
+        }
+    }
+}
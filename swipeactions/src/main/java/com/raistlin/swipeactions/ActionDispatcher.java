@@ -0,0 +1,204 @@
+package com.raistlin.swipeactions;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers triggered actions to the registered listeners. Without an executor actions are
+ * delivered synchronously. With one, a single task at a time drains a queue of pending
+ * actions in order, merging repeats of the same direction into one batched callback.
+ * Every action carries the token the layout was bound to when it triggered; pending
+ * actions whose token is no longer bound are dropped.
+ */
+final class ActionDispatcher implements Runnable {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final SwipeActionsLayout.ActionsListener[] NO_LISTENERS = new SwipeActionsLayout.ActionsListener[0];
+
+    // Replaced as a whole on every change, so dispatch iterates it without an iterator
+    private volatile SwipeActionsLayout.ActionsListener[] mListeners = NO_LISTENERS;
+    private volatile Executor mExecutor;
+    private volatile Object mToken;
+
+    // Ring buffer of pending runs of one direction, guarded by this
+    private SwipeDirection[] mDirections = new SwipeDirection[INITIAL_CAPACITY];
+    private Object[] mTokens = new Object[INITIAL_CAPACITY];
+    private int[] mCounts = new int[INITIAL_CAPACITY];
+    private int mHead;
+    private int mSize;
+    private boolean mScheduled;
+
+    synchronized void addListener(SwipeActionsLayout.ActionsListener listener) {
+        if (listener == null) {
+            // Rejected here rather than failing later on whatever thread delivers actions
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        final SwipeActionsLayout.ActionsListener[] listeners = mListeners;
+        if (indexOf(listeners, listener) >= 0) {
+            return;
+        }
+        final SwipeActionsLayout.ActionsListener[] added = new SwipeActionsLayout.ActionsListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, added, 0, listeners.length);
+        added[listeners.length] = listener;
+        mListeners = added;
+    }
+
+    synchronized void removeListener(SwipeActionsLayout.ActionsListener listener) {
+        final SwipeActionsLayout.ActionsListener[] listeners = mListeners;
+        final int index = indexOf(listeners, listener);
+        if (index < 0) {
+            return;
+        }
+        final SwipeActionsLayout.ActionsListener[] removed = new SwipeActionsLayout.ActionsListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, removed, 0, index);
+        System.arraycopy(listeners, index + 1, removed, index, removed.length - index);
+        mListeners = removed;
+    }
+
+    synchronized void clearListeners() {
+        mListeners = NO_LISTENERS;
+    }
+
+    private static int indexOf(SwipeActionsLayout.ActionsListener[] listeners, SwipeActionsLayout.ActionsListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    void setToken(Object token) {
+        mToken = token;
+    }
+
+    Object getToken() {
+        return mToken;
+    }
+
+    void dispatch(SwipeDirection direction) {
+        final Executor executor = mExecutor;
+        final Object token = mToken;
+        if (executor == null) {
+            deliver(direction, token, 1);
+            return;
+        }
+        synchronized (this) {
+            enqueue(direction, token);
+            if (mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        try {
+            executor.execute(this);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                mScheduled = false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final SwipeDirection direction;
+            final Object token;
+            final int count;
+            synchronized (this) {
+                if (mSize == 0) {
+                    mScheduled = false;
+                    return;
+                }
+                direction = mDirections[mHead];
+                token = mTokens[mHead];
+                count = mCounts[mHead];
+                mDirections[mHead] = null;
+                mTokens[mHead] = null;
+                mHead = (mHead + 1) % mDirections.length;
+                mSize--;
+            }
+            if (isBound(token)) {
+                deliver(direction, token, count);
+            }
+        }
+    }
+
+    private boolean isBound(Object token) {
+        return sameToken(mToken, token);
+    }
+
+    private static boolean sameToken(Object a, Object b) {
+        return a == b || a != null && a.equals(b);
+    }
+
+    private void enqueue(SwipeDirection direction, Object token) {
+        if (mSize > 0) {
+            final int tail = (mHead + mSize - 1) % mDirections.length;
+            if (mDirections[tail] == direction && sameToken(mTokens[tail], token)) {
+                mCounts[tail]++;
+                return;
+            }
+        }
+        if (mSize == mDirections.length) {
+            grow();
+        }
+        final int tail = (mHead + mSize) % mDirections.length;
+        mDirections[tail] = direction;
+        mTokens[tail] = token;
+        mCounts[tail] = 1;
+        mSize++;
+    }
+
+    private void grow() {
+        final SwipeDirection[] directions = new SwipeDirection[mDirections.length * 2];
+        final Object[] tokens = new Object[mTokens.length * 2];
+        final int[] counts = new int[mCounts.length * 2];
+        for (int i = 0; i < mSize; i++) {
+            directions[i] = mDirections[(mHead + i) % mDirections.length];
+            tokens[i] = mTokens[(mHead + i) % mTokens.length];
+            counts[i] = mCounts[(mHead + i) % mCounts.length];
+        }
+        mDirections = directions;
+        mTokens = tokens;
+        mCounts = counts;
+        mHead = 0;
+    }
+
+    void dispatchArmed(SwipeDirection direction) {
+        for (SwipeActionsLayout.ActionsListener listener : mListeners) {
+            if (listener instanceof SwipeActionsLayout.ArmedActionsListener) {
+                ((SwipeActionsLayout.ArmedActionsListener) listener).onActionArmed(direction);
+            }
+        }
+    }
+
+    void dispatchDisarmed(SwipeDirection direction) {
+        for (SwipeActionsLayout.ActionsListener listener : mListeners) {
+            if (listener instanceof SwipeActionsLayout.ArmedActionsListener) {
+                ((SwipeActionsLayout.ArmedActionsListener) listener).onActionDisarmed(direction);
+            }
+        }
+    }
+
+    private void deliver(SwipeDirection direction, Object token, int count) {
+        for (SwipeActionsLayout.ActionsListener listener : mListeners) {
+            if (listener instanceof SwipeActionsLayout.BoundActionsListener) {
+                for (int i = 0; i < count; i++) {
+                    ((SwipeActionsLayout.BoundActionsListener) listener).onActionSelected(direction, token);
+                }
+            } else if (listener instanceof SwipeActionsLayout.BatchedActionsListener) {
+                ((SwipeActionsLayout.BatchedActionsListener) listener).onActionsSelected(direction, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    listener.onActionSelected(direction);
+                }
+            }
+        }
+    }
+}
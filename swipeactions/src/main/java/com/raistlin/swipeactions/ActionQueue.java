@@ -0,0 +1,72 @@
+package com.raistlin.swipeactions;
+
+/**
+ * First in, first out queue of actions requested through
+ * {@link SwipeActionsLayout#performAction(SwipeDirection, boolean)} while another action was
+ * still animating. Only used on the UI thread; it grows when needed and never shrinks, so
+ * steady key repeat does not allocate.
+ */
+final class ActionQueue {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private SwipeDirection[] mDirections = new SwipeDirection[INITIAL_CAPACITY];
+    private boolean[] mAnimate = new boolean[INITIAL_CAPACITY];
+    private int mHead;
+    private int mSize;
+
+    void add(SwipeDirection direction, boolean animate) {
+        if (mSize == mDirections.length) {
+            grow();
+        }
+        final int tail = (mHead + mSize) % mDirections.length;
+        mDirections[tail] = direction;
+        mAnimate[tail] = animate;
+        mSize++;
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * @return whether the oldest action asked to be animated
+     */
+    boolean isAnimated() {
+        return mAnimate[mHead];
+    }
+
+    /**
+     * Removes the oldest action.
+     */
+    SwipeDirection poll() {
+        final SwipeDirection direction = mDirections[mHead];
+        mDirections[mHead] = null;
+        mHead = (mHead + 1) % mDirections.length;
+        mSize--;
+        return direction;
+    }
+
+    void clear() {
+        while (mSize > 0) {
+            poll();
+        }
+        mHead = 0;
+    }
+
+    private void grow() {
+        final SwipeDirection[] directions = new SwipeDirection[mDirections.length * 2];
+        final boolean[] animate = new boolean[mAnimate.length * 2];
+        for (int i = 0; i < mSize; i++) {
+            directions[i] = mDirections[(mHead + i) % mDirections.length];
+            animate[i] = mAnimate[(mHead + i) % mAnimate.length];
+        }
+        mDirections = directions;
+        mAnimate = animate;
+        mHead = 0;
+    }
+}
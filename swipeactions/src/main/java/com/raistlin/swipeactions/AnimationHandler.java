@@ -0,0 +1,130 @@
+package com.raistlin.swipeactions;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Shared frame clock for {@link SwipeAnimation}s. Every running animation on a thread
+ * is advanced from a single Choreographer frame callback (a delayed message before
+ * Jelly Bean), so layouts do not schedule frames of their own.
+ */
+final class AnimationHandler {
+
+    // Frame delay used when Choreographer is not available
+    private static final long FRAME_DELAY = 10;
+
+    private static final ThreadLocal<AnimationHandler> sInstance = new ThreadLocal<>();
+
+    private final ArrayList<SwipeAnimation> mAnimations = new ArrayList<>();
+    private final FrameScheduler mScheduler;
+    private boolean mFrameScheduled;
+    private boolean mListDirty;
+
+    static AnimationHandler getInstance() {
+        AnimationHandler handler = sInstance.get();
+        if (handler == null) {
+            handler = new AnimationHandler();
+            sInstance.set(handler);
+        }
+        return handler;
+    }
+
+    private AnimationHandler() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mScheduler = new ChoreographerScheduler(this);
+        } else {
+            mScheduler = new HandlerScheduler(this);
+        }
+    }
+
+    void addAnimation(SwipeAnimation animation) {
+        if (!mAnimations.contains(animation)) {
+            mAnimations.add(animation);
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.postFrame();
+        }
+    }
+
+    void removeAnimation(SwipeAnimation animation) {
+        final int index = mAnimations.indexOf(animation);
+        if (index >= 0) {
+            // Removal is deferred to the end of the frame so that iteration stays valid
+            mAnimations.set(index, null);
+            mListDirty = true;
+        }
+    }
+
+    void doFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        final int size = mAnimations.size();
+        for (int i = 0; i < size; i++) {
+            final SwipeAnimation animation = mAnimations.get(i);
+            if (animation != null && animation.doAnimationFrame(frameTimeMillis)) {
+                removeAnimation(animation);
+            }
+        }
+        if (mListDirty) {
+            for (int i = mAnimations.size() - 1; i >= 0; i--) {
+                if (mAnimations.get(i) == null) {
+                    mAnimations.remove(i);
+                }
+            }
+            mListDirty = false;
+        }
+        if (!mAnimations.isEmpty() && !mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.postFrame();
+        }
+    }
+
+    private interface FrameScheduler {
+        void postFrame();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerScheduler implements FrameScheduler, Choreographer.FrameCallback {
+        private final AnimationHandler mHandler;
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        ChoreographerScheduler(AnimationHandler handler) {
+            mHandler = handler;
+        }
+
+        @Override
+        public void postFrame() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mHandler.doFrame(frameTimeNanos / 1000000);
+        }
+    }
+
+    private static final class HandlerScheduler implements FrameScheduler, Runnable {
+        private final AnimationHandler mHandler;
+        private final Handler mLooperHandler = new Handler(Looper.myLooper());
+
+        HandlerScheduler(AnimationHandler handler) {
+            mHandler = handler;
+        }
+
+        @Override
+        public void postFrame() {
+            mLooperHandler.postDelayed(this, FRAME_DELAY);
+        }
+
+        @Override
+        public void run() {
+            mHandler.doFrame(SystemClock.uptimeMillis());
+        }
+    }
+}
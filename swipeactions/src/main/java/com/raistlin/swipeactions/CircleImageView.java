@@ -17,41 +17,33 @@
 package com.raistlin.swipeactions;
 
 import android.content.Context;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RadialGradient;
-import android.graphics.Shader;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
-import android.graphics.drawable.shapes.OvalShape;
 import android.os.Build;
-import android.support.graphics.drawable.VectorDrawableCompat;
 import android.support.v4.view.ViewCompat;
-import android.view.animation.Animation;
 import android.widget.ImageView;
 
 /**
- * Private class created to work around issues with AnimationListeners being
- * called before the animation is actually complete and support shadows on older
- * platforms.
+ * Private class created to support shadows on older platforms. Animations are driven
+ * by {@link SwipeActionsLayout} through {@link SwipeAnimation} slots.
  */
 @SuppressWarnings("deprecation")
-class CircleImageView extends ImageView {
+class CircleImageView extends ImageView implements SwipeIndicator {
 
-    private static final int KEY_SHADOW_COLOR = 0x1E000000;
-    private static final int FILL_SHADOW_COLOR = 0x3D000000;
     // PX
-    private static final float X_OFFSET = 0f;
-    private static final float Y_OFFSET = 1.75f;
-    private static final float SHADOW_RADIUS = 3.5f;
+    static final float SHADOW_RADIUS = 3.5f;
     private static final int SHADOW_ELEVATION = 4;
 
-    private Animation.AnimationListener mListener;
     private int mShadowRadius;
+    private int mDiameter;
 
     private Drawable mDrawable;
     private int mDrawableAlpha;
+    private int mColor;
+    private int mBackgroundAlpha = SwipeActionsLayout.MAX_ALPHA;
 
     private int mOriginalOffset;
     private int mCurrentTargetOffset;
@@ -59,32 +51,35 @@ class CircleImageView extends ImageView {
     public CircleImageView(Context context, int color, final float radius, int image) {
         super(context);
         final float density = getContext().getResources().getDisplayMetrics().density;
-        final int diameter = (int) (radius * density * 2);
-        final int shadowYOffset = (int) (density * Y_OFFSET);
-        final int shadowXOffset = (int) (density * X_OFFSET);
+        mDiameter = (int) (radius * density * 2);
         mShadowRadius = (int) (density * SHADOW_RADIUS);
+        mColor = color;
 
-        ShapeDrawable circle;
         if (elevationSupported()) {
-            circle = new ShapeDrawable(new OvalShape());
             ViewCompat.setElevation(this, SHADOW_ELEVATION * density);
+            setBackgroundDrawable(IndicatorResources.getCircle(getResources(), color));
         } else {
-            OvalShape oval = new OvalShadow(mShadowRadius, diameter);
-            circle = new ShapeDrawable(oval);
-            ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_SOFTWARE, circle.getPaint());
-            circle.getPaint().setShadowLayer(mShadowRadius, shadowXOffset, shadowYOffset, KEY_SHADOW_COLOR);
+            // The shadow is baked into a shared bitmap, so no software layer is needed
+            setBackgroundDrawable(createShadowBackground(color));
             final int padding = mShadowRadius;
             // set padding so the inner image sits correctly within the shadow.
             setPadding(padding, padding, padding, padding);
         }
-        circle.getPaint().setColor(color);
-        setBackgroundDrawable(circle);
         setScaleType(ScaleType.CENTER_INSIDE);
 
-        mDrawable = VectorDrawableCompat.create(getResources(), image, null);
+        setImage(image);
+    }
+
+    public void setImage(int image) {
+        mDrawable = IndicatorResources.getIcon(getResources(), image);
         setImageDrawable(mDrawable);
     }
 
+    private Drawable createShadowBackground(int color) {
+        final float density = getContext().getResources().getDisplayMetrics().density;
+        return new BitmapDrawable(getResources(), ShadowBitmapCache.get(mDiameter, mShadowRadius, color, density));
+    }
+
     private boolean elevationSupported() {
         return android.os.Build.VERSION.SDK_INT >= 21;
     }
@@ -97,95 +92,84 @@ class CircleImageView extends ImageView {
         }
     }
 
-    public void setAnimationListener(Animation.AnimationListener listener) {
-        mListener = listener;
-    }
-
-    @Override
-    public void onAnimationStart() {
-        super.onAnimationStart();
-        if (mListener != null) {
-            mListener.onAnimationStart(getAnimation());
-        }
-    }
-
-    @Override
-    public void onAnimationEnd() {
-        super.onAnimationEnd();
-        if (mListener != null) {
-            mListener.onAnimationEnd(getAnimation());
-        }
-    }
-
     @Override
     public void setBackgroundColor(int color) {
+        mColor = color;
         if (getBackground() instanceof ShapeDrawable) {
-            ((ShapeDrawable) getBackground()).getPaint().setColor(color);
+            // The drawable state is shared with other indicators until mutated
+            ((ShapeDrawable) getBackground().mutate()).getPaint().setColor(color);
+        } else if (getBackground() instanceof BitmapDrawable) {
+            setBackgroundDrawable(createShadowBackground(color));
         }
     }
 
+    @Override
     public void setAllAlpha(int alpha) {
-        getBackground().setAlpha(alpha);
+        mBackgroundAlpha = alpha;
+        getBackground().mutate().setAlpha(alpha);
         setDrawableAlpha(alpha);
     }
 
+    @Override
     public void setScaledProgress(float progress) {
         ViewCompat.setScaleX(this, progress);
         ViewCompat.setScaleY(this, progress);
     }
 
+    @Override
     public int getCurrentTargetOffset() {
         return mCurrentTargetOffset;
     }
 
+    @Override
     public void setCurrentTargetOffset(int currentTargetOffset) {
         mCurrentTargetOffset = currentTargetOffset;
     }
 
+    @Override
     public int getOriginalOffset() {
         return mOriginalOffset;
     }
 
+    @Override
     public void setOriginalOffset(int originalOffset) {
         mOriginalOffset = originalOffset;
     }
 
+    @Override
+    public boolean getOpaqueBounds(Rect outRect) {
+        if (getVisibility() != VISIBLE || mBackgroundAlpha != SwipeActionsLayout.MAX_ALPHA || Color.alpha(mColor) != 0xFF) {
+            return false;
+        }
+        // The circle is centered within the shadow padding, if any
+        final float centerX = getLeft() + ViewCompat.getTranslationX(this) + getWidth() / 2f;
+        final float centerY = getTop() + ViewCompat.getTranslationY(this) + getHeight() / 2f;
+        getInscribedSquare(centerX, centerY, mDiameter / 2f * ViewCompat.getScaleX(this), outRect);
+        return true;
+    }
+
+    /**
+     * Sets {@code outRect} to the largest square within the given circle.
+     */
+    static void getInscribedSquare(float centerX, float centerY, float radius, Rect outRect) {
+        final float half = radius / (float) Math.sqrt(2);
+        outRect.set((int) Math.ceil(centerX - half), (int) Math.ceil(centerY - half),
+                (int) Math.floor(centerX + half), (int) Math.floor(centerY + half));
+    }
+
+    @Override
     public int getDrawableAlpha() {
         return mDrawableAlpha;
     }
 
+    @Override
     public void setDrawableAlpha(int alpha) {
         mDrawableAlpha = alpha;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             setImageAlpha(alpha);
-        } else {
+        } else if (mDrawable != null) {
+            mDrawable = mDrawable.mutate();
             mDrawable.setAlpha(alpha);
         }
     }
-
-    private class OvalShadow extends OvalShape {
-        private RadialGradient mRadialGradient;
-        private Paint mShadowPaint;
-        private int mCircleDiameter;
-
-        OvalShadow(int shadowRadius, int circleDiameter) {
-            super();
-            mShadowPaint = new Paint();
-            mShadowRadius = shadowRadius;
-            mCircleDiameter = circleDiameter;
-            mRadialGradient = new RadialGradient(mCircleDiameter / 2, mCircleDiameter / 2,
-                    mShadowRadius, new int[]{
-                    FILL_SHADOW_COLOR, Color.TRANSPARENT
-            }, null, Shader.TileMode.CLAMP);
-            mShadowPaint.setShader(mRadialGradient);
-        }
-
-        @Override
-        public void draw(Canvas canvas, Paint paint) {
-            final int viewWidth = CircleImageView.this.getWidth();
-            final int viewHeight = CircleImageView.this.getHeight();
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, (mCircleDiameter / 2 + mShadowRadius), mShadowPaint);
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, (mCircleDiameter / 2), paint);
-        }
-    }
 }
@@ -0,0 +1,74 @@
+package com.raistlin.swipeactions;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * Window-level pool of indicators for layouts with lazy indicators. The pool is stored on
+ * the root view, so all layouts of a window borrow from the same few indicators while
+ * they are being dragged or settling.
+ */
+final class IndicatorPool {
+
+    // One indicator is dragged while another one may still be settling
+    private static final int MAX_POOL_SIZE = 2;
+
+    private final ArrayList<CircleImageView> mIndicators = new ArrayList<>(MAX_POOL_SIZE);
+
+    static IndicatorPool get(View view) {
+        final View root = view.getRootView();
+        IndicatorPool pool = (IndicatorPool) root.getTag(R.id.swipe_actions_indicator_pool);
+        if (pool == null) {
+            pool = new IndicatorPool();
+            root.setTag(R.id.swipe_actions_indicator_pool, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Lends an indicator showing the given image and attaches it to the host. Since Jelly Bean
+     * MR2 the indicator lives in the host's overlay, so attaching it does not request a layout.
+     */
+    CircleImageView acquire(ViewGroup host, int color, float radius, int image) {
+        final CircleImageView indicator;
+        if (mIndicators.isEmpty()) {
+            indicator = new CircleImageView(host.getContext(), color, radius, image);
+        } else {
+            indicator = mIndicators.remove(mIndicators.size() - 1);
+            indicator.setImage(image);
+        }
+        indicator.setVisibility(View.INVISIBLE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            addToOverlay(host, indicator);
+        } else {
+            host.addView(indicator);
+        }
+        return indicator;
+    }
+
+    void release(ViewGroup host, CircleImageView indicator) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            removeFromOverlay(host, indicator);
+        } else {
+            host.removeView(indicator);
+        }
+        if (mIndicators.size() < MAX_POOL_SIZE) {
+            mIndicators.add(indicator);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void addToOverlay(ViewGroup host, View indicator) {
+        host.getOverlay().add(indicator);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void removeFromOverlay(ViewGroup host, View indicator) {
+        host.getOverlay().remove(indicator);
+    }
+}
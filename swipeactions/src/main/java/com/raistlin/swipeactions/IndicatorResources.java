@@ -0,0 +1,84 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.support.graphics.drawable.VectorDrawableCompat;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide cache of indicator drawables. Instances share the parsed constant state,
+ * so inflating many layouts with the same images parses each image once. Drawables
+ * handed out here must be mutated before their state is changed.
+ */
+final class IndicatorResources {
+
+    private static final int MAX_ICONS = 32;
+    private static final int MAX_CIRCLES = 8;
+
+    // Keyed by density and resource id
+    private static final LruCache<Long, Drawable.ConstantState> sIcons = new LruCache<>(MAX_ICONS);
+    // Keyed by color
+    private static final LruCache<Integer, Drawable.ConstantState> sCircles = new LruCache<>(MAX_CIRCLES);
+
+    private IndicatorResources() {
+    }
+
+    /**
+     * @return the image, or null when no image is set
+     */
+    static Drawable getIcon(Resources resources, int image) {
+        if (image == -1) {
+            return null;
+        }
+        final Long key = ((long) resources.getDisplayMetrics().densityDpi << 32) | (image & 0xFFFFFFFFL);
+        Drawable.ConstantState state = sIcons.get(key);
+        if (state == null) {
+            final Drawable drawable = VectorDrawableCompat.create(resources, image, null);
+            if (drawable == null || drawable.getConstantState() == null) {
+                return drawable;
+            }
+            state = drawable.getConstantState();
+            sIcons.put(key, state);
+            return drawable;
+        }
+        return state.newDrawable(resources);
+    }
+
+    /**
+     * @return a mutated image whose state can be changed, or null when no image is set
+     */
+    static Drawable getMutatedIcon(Resources resources, int image) {
+        final Drawable icon = getIcon(resources, image);
+        return icon != null ? icon.mutate() : null;
+    }
+
+    static ShapeDrawable getCircle(Resources resources, int color) {
+        Drawable.ConstantState state = sCircles.get(color);
+        if (state == null) {
+            final ShapeDrawable circle = new ShapeDrawable(new OvalShape());
+            circle.getPaint().setColor(color);
+            state = circle.getConstantState();
+            sCircles.put(color, state);
+            return circle;
+        }
+        return (ShapeDrawable) state.newDrawable(resources);
+    }
+
+    /**
+     * Loads the images on a background thread so that later inflation hits the cache.
+     */
+    static void prewarm(Context context, final int[] drawableRes) {
+        final Resources resources = context.getApplicationContext().getResources();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int image : drawableRes) {
+                    getIcon(resources, image);
+                }
+            }
+        }, "SwipeActionsPrewarm").start();
+    }
+}
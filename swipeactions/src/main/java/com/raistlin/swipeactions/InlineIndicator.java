@@ -0,0 +1,209 @@
+package com.raistlin.swipeactions;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Canvas.EdgeType;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+import android.view.View;
+
+/**
+ * Indicator without a view of its own. The host draws it on its canvas, using the shared
+ * pre-rendered circle and shadow of {@link ShadowBitmapCache}. A state change of a visible
+ * indicator invalidates just the area of the host the indicator covers.
+ */
+final class InlineIndicator implements SwipeIndicator {
+
+    // Indicators of every host are drawn one at a time on the UI thread, so they share a paint
+    private static final Paint sCirclePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final View mHost;
+    private final Bitmap mCircle;
+    private final Drawable mIcon;
+    private final int mIconSize;
+    private final boolean mOpaque;
+
+    private int mVisibility = View.INVISIBLE;
+    private int mBackgroundAlpha = SwipeActionsLayout.MAX_ALPHA;
+    private int mDrawableAlpha = SwipeActionsLayout.MAX_ALPHA;
+    private float mScale = 1f;
+    private int mOriginalOffset;
+    private int mCurrentTargetOffset;
+    // Set by the host's layout
+    private int mEdge;
+    private int mHeight;
+
+    InlineIndicator(View host, int color, float radius, int image) {
+        mHost = host;
+        final Resources resources = host.getResources();
+        final DisplayMetrics metrics = resources.getDisplayMetrics();
+        mIconSize = (int) (radius * metrics.density * 2);
+        final int shadowRadius = (int) (CircleImageView.SHADOW_RADIUS * metrics.density);
+        mCircle = ShadowBitmapCache.get(mIconSize, shadowRadius, color, metrics.density);
+        mOpaque = Color.alpha(color) == 0xFF;
+        // Mutated, as the alpha is set on the drawable itself
+        mIcon = IndicatorResources.getMutatedIcon(resources, image);
+    }
+
+    /**
+     * @return width and height of the indicator, including its shadow
+     */
+    int getSize() {
+        return mCircle.getWidth();
+    }
+
+    /**
+     * Places the indicator at its offsets from {@code edge}, centered vertically within
+     * {@code height}.
+     */
+    void layout(int edge, int height) {
+        mEdge = edge;
+        mHeight = height;
+    }
+
+    void draw(Canvas canvas) {
+        if (mVisibility != View.VISIBLE) {
+            return;
+        }
+        final int size = mCircle.getWidth();
+        final int left = mEdge + mCurrentTargetOffset;
+        final int top = mHeight / 2 - size / 2;
+        if (canvas.quickReject(left, top, left + size, top + size, EdgeType.AA)) {
+            // Settled just outside the host
+            return;
+        }
+        final int saveCount = canvas.save();
+        if (mScale != 1f) {
+            canvas.scale(mScale, mScale, left + size / 2f, top + size / 2f);
+        }
+        draw(canvas, mCircle, left, top, mBackgroundAlpha, mIcon, mIconSize, mDrawableAlpha);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Draws a pre-rendered circle from {@link ShadowBitmapCache} with its top left corner at
+     * {@code left, top} and the icon centered on it. Shared by all hosts that draw indicators
+     * themselves.
+     *
+     * @param icon mutated icon, or null to draw the circle only
+     */
+    static void draw(Canvas canvas, Bitmap circle, int left, int top, int circleAlpha, Drawable icon, int iconSize, int iconAlpha) {
+        sCirclePaint.setAlpha(circleAlpha);
+        canvas.drawBitmap(circle, left, top, sCirclePaint);
+        if (icon == null) {
+            return;
+        }
+
+        // Centered without upscaling, like the CENTER_INSIDE indicator image
+        final int size = circle.getWidth();
+        final int iconWidth = icon.getIntrinsicWidth() > 0 ? Math.min(icon.getIntrinsicWidth(), iconSize) : iconSize;
+        final int iconHeight = icon.getIntrinsicHeight() > 0 ? Math.min(icon.getIntrinsicHeight(), iconSize) : iconSize;
+        final int iconLeft = left + (size - iconWidth) / 2;
+        final int iconTop = top + (size - iconHeight) / 2;
+        icon.setBounds(iconLeft, iconTop, iconLeft + iconWidth, iconTop + iconHeight);
+        icon.setAlpha(iconAlpha);
+        icon.draw(canvas);
+    }
+
+    @Override
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    @Override
+    public void setVisibility(int visibility) {
+        if (mVisibility != visibility) {
+            mVisibility = visibility;
+            invalidate(mCurrentTargetOffset, mCurrentTargetOffset);
+        }
+    }
+
+    @Override
+    public void setAllAlpha(int alpha) {
+        if (mBackgroundAlpha != alpha) {
+            mBackgroundAlpha = alpha;
+            invalidateIfVisible(mCurrentTargetOffset);
+        }
+        setDrawableAlpha(alpha);
+    }
+
+    @Override
+    public int getDrawableAlpha() {
+        return mDrawableAlpha;
+    }
+
+    @Override
+    public void setDrawableAlpha(int alpha) {
+        if (mDrawableAlpha != alpha) {
+            mDrawableAlpha = alpha;
+            invalidateIfVisible(mCurrentTargetOffset);
+        }
+    }
+
+    @Override
+    public void setScaledProgress(float progress) {
+        if (mScale != progress) {
+            // Covers the larger of both scales
+            invalidateIfVisible(mCurrentTargetOffset);
+            mScale = progress;
+            invalidateIfVisible(mCurrentTargetOffset);
+        }
+    }
+
+    @Override
+    public int getCurrentTargetOffset() {
+        return mCurrentTargetOffset;
+    }
+
+    @Override
+    public void setCurrentTargetOffset(int currentTargetOffset) {
+        final int previousOffset = mCurrentTargetOffset;
+        mCurrentTargetOffset = currentTargetOffset;
+        if (mVisibility == View.VISIBLE && previousOffset != currentTargetOffset) {
+            invalidate(previousOffset, currentTargetOffset);
+        }
+    }
+
+    @Override
+    public int getOriginalOffset() {
+        return mOriginalOffset;
+    }
+
+    @Override
+    public void setOriginalOffset(int originalOffset) {
+        mOriginalOffset = originalOffset;
+    }
+
+    @Override
+    public boolean getOpaqueBounds(Rect outRect) {
+        if (mVisibility != View.VISIBLE || !mOpaque || mBackgroundAlpha != SwipeActionsLayout.MAX_ALPHA) {
+            return false;
+        }
+        final int size = mCircle.getWidth();
+        final int top = mHeight / 2 - size / 2;
+        CircleImageView.getInscribedSquare(mEdge + mCurrentTargetOffset + size / 2f, top + size / 2f, mIconSize / 2f * mScale, outRect);
+        return true;
+    }
+
+    private void invalidateIfVisible(int offset) {
+        if (mVisibility == View.VISIBLE) {
+            invalidate(offset, offset);
+        }
+    }
+
+    /**
+     * Invalidates the area of the host the indicator covers at either offset.
+     */
+    private void invalidate(int fromOffset, int toOffset) {
+        final int size = mCircle.getWidth();
+        // Scaled around its center
+        final int overflow = mScale > 1f ? (int) Math.ceil(size * (mScale - 1f) / 2f) : 0;
+        final int top = mHeight / 2 - size / 2 - overflow;
+        mHost.invalidate(mEdge + Math.min(fromOffset, toOffset) - overflow, top,
+                mEdge + Math.max(fromOffset, toOffset) + size + overflow, top + size + 2 * overflow);
+    }
+}
@@ -0,0 +1,69 @@
+package com.raistlin.swipeactions;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide cache of pre-rendered indicator backgrounds (circle plus shadow) for
+ * platforms without elevation. Rendering the shadow once into a bitmap lets the
+ * indicators skip the software layer and the per-frame gradient drawing.
+ */
+final class ShadowBitmapCache {
+
+    private static final int KEY_SHADOW_COLOR = 0x1E000000;
+    private static final int FILL_SHADOW_COLOR = 0x3D000000;
+    // PX
+    private static final float X_OFFSET = 0f;
+    private static final float Y_OFFSET = 1.75f;
+
+    // Enough for a few dozen differently sized or colored indicators
+    private static final int MAX_CACHE_SIZE = 1024 * 1024;
+
+    private static final LruCache<String, Bitmap> sCache = new LruCache<String, Bitmap>(MAX_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    private ShadowBitmapCache() {
+    }
+
+    /**
+     * @return a bitmap of {@code diameter + 2 * shadowRadius} pixels square with the circle centered
+     */
+    static Bitmap get(int diameter, int shadowRadius, int color, float density) {
+        final String key = diameter + ":" + shadowRadius + ":" + color + ":" + density;
+        Bitmap bitmap = sCache.get(key);
+        if (bitmap == null) {
+            bitmap = render(diameter, shadowRadius, color, density);
+            sCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap render(int diameter, int shadowRadius, int color, float density) {
+        final int size = diameter + shadowRadius * 2;
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+
+        final Paint shadowPaint = new Paint();
+        shadowPaint.setShader(new RadialGradient(diameter / 2, diameter / 2,
+                shadowRadius, new int[]{
+                FILL_SHADOW_COLOR, Color.TRANSPARENT
+        }, null, Shader.TileMode.CLAMP));
+
+        final Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        circlePaint.setColor(color);
+        circlePaint.setShadowLayer(shadowRadius, (int) (density * X_OFFSET), (int) (density * Y_OFFSET), KEY_SHADOW_COLOR);
+
+        canvas.drawCircle(size / 2, size / 2, (diameter / 2 + shadowRadius), shadowPaint);
+        canvas.drawCircle(size / 2, size / 2, (diameter / 2), circlePaint);
+        return bitmap;
+    }
+}
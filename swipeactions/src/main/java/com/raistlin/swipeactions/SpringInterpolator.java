@@ -0,0 +1,62 @@
+package com.raistlin.swipeactions;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Critically damped spring, expressed as an interpolator for a {@link SwipeAnimation} slot.
+ * The spring is solved in closed form, so its velocity is known at any time of a run, which
+ * lets a settle that is caught or retargeted continue without a jump in speed.
+ */
+final class SpringInterpolator implements Interpolator {
+
+    // Natural frequency in radians per second, settles a 64dp travel in about 200ms like the former fixed durations
+    private static final float FREQUENCY = 40f;
+    // Pixels from the target within which the spring counts as settled
+    private static final float REST_DISTANCE = .5f;
+    private static final long MAX_DURATION = 1000;
+
+    // Displacement from the target and velocity at the start of the run
+    private float mDistance;
+    private float mVelocity;
+    private long mDuration;
+
+    /**
+     * Configures a run from {@code from} to {@code to}, starting with the given velocity in
+     * pixels per second.
+     *
+     * @return duration of the run in milliseconds
+     */
+    long start(float from, float to, float velocity) {
+        mDistance = from - to;
+        mVelocity = velocity;
+        // The displacement is bounded by (|A| + |B|t)e^(-wt); find when that bound comes to rest
+        final float a = Math.abs(mDistance);
+        final float b = Math.abs(velocity + FREQUENCY * mDistance);
+        float time = 0;
+        for (int i = 0; i < 8; i++) {
+            time = Math.max(0, (float) Math.log((a + b * time) / REST_DISTANCE) / FREQUENCY);
+        }
+        mDuration = Math.min(MAX_DURATION, (long) (time * 1000));
+        return mDuration;
+    }
+
+    private float displacementAt(float time) {
+        return (mDistance + (mVelocity + FREQUENCY * mDistance) * time) * (float) Math.exp(-FREQUENCY * time);
+    }
+
+    /**
+     * @return velocity in pixels per second, the given time into the run
+     */
+    float getVelocity(long elapsedMillis) {
+        final float time = elapsedMillis / 1000f;
+        return (mVelocity - FREQUENCY * (mVelocity + FREQUENCY * mDistance) * time) * (float) Math.exp(-FREQUENCY * time);
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input >= 1f || mDistance == 0) {
+            return 1f;
+        }
+        return 1f - displacementAt(input * mDuration / 1000f) / mDistance;
+    }
+}
@@ -0,0 +1,330 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.animation.DecelerateInterpolator;
+
+import static com.raistlin.swipeactions.SwipeActionsLayout.ALPHA_ANIMATION_DURATION;
+import static com.raistlin.swipeactions.SwipeActionsLayout.ANIMATE_TO_START_DURATION;
+import static com.raistlin.swipeactions.SwipeActionsLayout.ANIMATE_TO_TRIGGER_DURATION;
+import static com.raistlin.swipeactions.SwipeActionsLayout.CIRCLE_BG_LIGHT;
+import static com.raistlin.swipeactions.SwipeActionsLayout.CIRCLE_DIAMETER;
+import static com.raistlin.swipeactions.SwipeActionsLayout.DECELERATE_INTERPOLATION_FACTOR;
+import static com.raistlin.swipeactions.SwipeActionsLayout.DEFAULT_CIRCLE_TARGET;
+import static com.raistlin.swipeactions.SwipeActionsLayout.MAX_ALPHA;
+import static com.raistlin.swipeactions.SwipeActionsLayout.STARTING_PROGRESS_ALPHA;
+
+/**
+ * Swipe actions for the rows of a RecyclerView. A single helper handles the touches of the
+ * whole list and draws the indicator of the swiped row as an item decoration, so rows need
+ * no {@link SwipeActionsLayout} of their own.
+ * <pre>
+ * new SwipeActionsItemHelper(context, R.drawable.left, R.drawable.right, listener)
+ *         .attachToRecyclerView(recyclerView);
+ * </pre>
+ */
+public class SwipeActionsItemHelper extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+
+    private final ActionsListener mListener;
+    private final float mTotalDragDistance;
+    private final float mSpinnerFinalOffset;
+    private DragPhysics mDragPhysics;
+    private final SwipeGestureStateMachine mGesture;
+
+    private final Bitmap mCircle;
+    private final Drawable mLeftIcon;
+    private final Drawable mRightIcon;
+    private final int mIconSize;
+
+    private RecyclerView mRecyclerView;
+
+    private SwipeDirection mSwipeDirection = SwipeDirection.NONE;
+    private RecyclerView.ViewHolder mSwipedHolder;
+    private boolean mIsBeingDragged;
+
+    // Indicator state of the swiped row, relative to the row's edge as in SwipeActionsLayout
+    private int mOriginalOffset;
+    private int mCurrentOffset;
+    private int mAlpha;
+
+    private final SwipeAnimation mPositionAnimation;
+    private final SwipeAnimation mAlphaAnimation;
+
+    private final SwipeAnimation.UpdateListener mPositionUpdateListener = new SwipeAnimation.UpdateListener() {
+        @Override
+        public void onAnimationUpdate(SwipeAnimation animation, float value) {
+            mCurrentOffset = (int) value;
+            invalidate();
+        }
+    };
+
+    private final SwipeAnimation.UpdateListener mAlphaUpdateListener = new SwipeAnimation.UpdateListener() {
+        @Override
+        public void onAnimationUpdate(SwipeAnimation animation, float value) {
+            mAlpha = (int) value;
+            invalidate();
+        }
+    };
+
+    private final SwipeAnimation.EndListener mRefreshListener = new SwipeAnimation.EndListener() {
+        @Override
+        public void onAnimationEnd(SwipeAnimation animation) {
+            final RecyclerView.ViewHolder holder = mSwipedHolder;
+            final SwipeDirection direction = mSwipeDirection;
+            clearSwipe();
+            final int position = holder.getAdapterPosition();
+            if (mListener != null && position != RecyclerView.NO_POSITION) {
+                mListener.onActionSelected(direction, position);
+            }
+        }
+    };
+
+    private final SwipeAnimation.EndListener mResetListener = new SwipeAnimation.EndListener() {
+        @Override
+        public void onAnimationEnd(SwipeAnimation animation) {
+            clearSwipe();
+        }
+    };
+
+    public SwipeActionsItemHelper(Context context, int leftImage, int rightImage, ActionsListener listener) {
+        mListener = listener;
+
+        final DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        final int diameter = (int) (CIRCLE_DIAMETER * metrics.density);
+        final int shadowRadius = (int) (CircleImageView.SHADOW_RADIUS * metrics.density);
+        mCircle = ShadowBitmapCache.get(diameter, shadowRadius, CIRCLE_BG_LIGHT, metrics.density);
+        mIconSize = diameter;
+        // Mutated, as the alpha is set on the drawable itself; null without an image
+        mLeftIcon = IndicatorResources.getMutatedIcon(context.getResources(), leftImage);
+        mRightIcon = IndicatorResources.getMutatedIcon(context.getResources(), rightImage);
+
+        mSpinnerFinalOffset = DEFAULT_CIRCLE_TARGET * metrics.density;
+        mTotalDragDistance = mSpinnerFinalOffset;
+        final DragPhysics physics = new TensionDragPhysics();
+        mGesture = new SwipeGestureStateMachine(ViewConfiguration.get(context).getScaledTouchSlop(), mTotalDragDistance, physics);
+        setDragPhysics(physics);
+
+        mPositionAnimation = new SwipeAnimation(mPositionUpdateListener);
+        mPositionAnimation.setInterpolator(new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR));
+        mAlphaAnimation = new SwipeAnimation(mAlphaUpdateListener);
+    }
+
+    /**
+     * Attaches the helper to the given list, detaching it from the previous one.
+     * Pass null to detach only.
+     */
+    public void attachToRecyclerView(RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        if (mRecyclerView != null) {
+            mRecyclerView.removeItemDecoration(this);
+            mRecyclerView.removeOnItemTouchListener(this);
+            mPositionAnimation.cancel();
+            mAlphaAnimation.cancel();
+            clearSwipe();
+        }
+        mRecyclerView = recyclerView;
+        if (mRecyclerView != null) {
+            mRecyclerView.addItemDecoration(this);
+            mRecyclerView.addOnItemTouchListener(this);
+        }
+    }
+
+    /**
+     * Set the curve mapping finger movement onto the indicator position.
+     */
+    public void setDragPhysics(DragPhysics dragPhysics) {
+        mDragPhysics = dragPhysics;
+        mDragPhysics.configure(mTotalDragDistance, mSpinnerFinalOffset);
+        mGesture.setDragPhysics(dragPhysics);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView recyclerView, MotionEvent ev) {
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (!recyclerView.isEnabled() || mPositionAnimation.isRunning()) {
+            // One row at a time: wait for the previous swipe to settle
+            return false;
+        }
+        if (action == MotionEvent.ACTION_DOWN) {
+            mIsBeingDragged = false;
+        } else if (action == MotionEvent.ACTION_MOVE && recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_DRAGGING) {
+            // The list is scrolling, leave the gesture to it
+            return false;
+        }
+
+        if (feedGesture(ev, action) == SwipeGestureStateMachine.RESULT_DRAG_STARTED) {
+            startSwipe(recyclerView, ev, mGesture.getDirection());
+        } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            mIsBeingDragged = false;
+        }
+        return mIsBeingDragged;
+    }
+
+    private void startSwipe(RecyclerView recyclerView, MotionEvent ev, SwipeDirection direction) {
+        final int pointerIndex = ev.findPointerIndex(mGesture.getActivePointerId());
+        final View child = recyclerView.findChildViewUnder(ev.getX(pointerIndex), ev.getY(pointerIndex));
+        if (child == null) {
+            return;
+        }
+        mSwipedHolder = recyclerView.getChildViewHolder(child);
+        if (mSwipedHolder == null || mSwipedHolder.getAdapterPosition() == RecyclerView.NO_POSITION) {
+            mSwipedHolder = null;
+            return;
+        }
+        mSwipeDirection = direction;
+        mIsBeingDragged = true;
+        mOriginalOffset = direction == SwipeDirection.LEFT ? -mCircle.getWidth() : 0;
+        mCurrentOffset = mOriginalOffset;
+        mAlpha = STARTING_PROGRESS_ALPHA;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView recyclerView, MotionEvent ev) {
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (mSwipedHolder == null || !mIsBeingDragged) {
+            return;
+        }
+
+        switch (feedGesture(ev, action)) {
+            case SwipeGestureStateMachine.RESULT_DRAGGED:
+                moveIndicator(mGesture.getDragDistance());
+                break;
+
+            case SwipeGestureStateMachine.RESULT_RELEASED:
+                mIsBeingDragged = false;
+                settle(mGesture.shouldTrigger(mGesture.getDragDistance(), 0));
+                break;
+
+            case SwipeGestureStateMachine.RESULT_CANCELLED:
+                mIsBeingDragged = false;
+                settle(false);
+                break;
+
+            default:
+                if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                    // Ended without the pointer driving the swipe
+                    mIsBeingDragged = false;
+                    settle(false);
+                }
+                break;
+        }
+    }
+
+    private void moveIndicator(float dragDistance) {
+        final float overscroll = mDragPhysics.getOverscroll(dragDistance);
+        if (overscroll < 0) {
+            return;
+        }
+        mCurrentOffset = mOriginalOffset + mSwipeDirection.getMultiplier() * (int) mDragPhysics.getIndicatorOffset(overscroll);
+        if (overscroll < mTotalDragDistance) {
+            if (mAlpha > STARTING_PROGRESS_ALPHA && !mAlphaAnimation.isRunningTo(STARTING_PROGRESS_ALPHA)) {
+                mAlphaAnimation.start(mAlpha, STARTING_PROGRESS_ALPHA, ALPHA_ANIMATION_DURATION, null);
+            }
+        } else {
+            if (mAlpha < MAX_ALPHA && !mAlphaAnimation.isRunningTo(MAX_ALPHA)) {
+                mAlphaAnimation.start(mAlpha, MAX_ALPHA, ALPHA_ANIMATION_DURATION, null);
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * Animates the indicator to the trigger point, delivering the action once it gets there,
+     * or back to where it started.
+     */
+    private void settle(boolean trigger) {
+        if (trigger) {
+            final int endTarget = mSwipeDirection == SwipeDirection.LEFT
+                    ? (int) (mSpinnerFinalOffset - Math.abs(mOriginalOffset))
+                    : (int) (Math.abs(mOriginalOffset) - mSpinnerFinalOffset);
+            mPositionAnimation.start(mCurrentOffset, endTarget, ANIMATE_TO_TRIGGER_DURATION, mRefreshListener);
+        } else {
+            mPositionAnimation.start(mCurrentOffset, mOriginalOffset, ANIMATE_TO_START_DURATION, mResetListener);
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (disallowIntercept && mIsBeingDragged) {
+            mIsBeingDragged = false;
+            mGesture.onTouchEvent(SwipeGestureStateMachine.ACTION_CANCEL, SystemClock.uptimeMillis(),
+                    SwipeGestureStateMachine.INVALID_POINTER, 0, 0);
+            settle(false);
+        }
+    }
+
+    /**
+     * Passes the event to the gesture state machine as a primitive sample of the pointer
+     * it is about.
+     *
+     * @return one of the {@code SwipeGestureStateMachine.RESULT_} constants
+     */
+    private int feedGesture(MotionEvent ev, int action) {
+        final int pointerIndex;
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                pointerIndex = 0;
+                break;
+            case MotionEventCompat.ACTION_POINTER_DOWN:
+            case MotionEventCompat.ACTION_POINTER_UP:
+                pointerIndex = MotionEventCompat.getActionIndex(ev);
+                break;
+            default:
+                pointerIndex = ev.findPointerIndex(mGesture.getActivePointerId());
+                break;
+        }
+        if (pointerIndex < 0) {
+            return mGesture.onTouchEvent(action, ev.getEventTime(), SwipeGestureStateMachine.INVALID_POINTER, 0, 0);
+        }
+        return mGesture.onTouchEvent(action, ev.getEventTime(), ev.getPointerId(pointerIndex), ev.getX(pointerIndex), ev.getY(pointerIndex));
+    }
+
+    private void clearSwipe() {
+        mAlphaAnimation.cancel();
+        mSwipedHolder = null;
+        mSwipeDirection = SwipeDirection.NONE;
+        invalidate();
+    }
+
+    private void invalidate() {
+        if (mRecyclerView != null) {
+            mRecyclerView.invalidate();
+        }
+    }
+
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        if (mSwipedHolder == null || mSwipedHolder.getAdapterPosition() == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final View row = mSwipedHolder.itemView;
+        if (row.getParent() != parent) {
+            // The row was scrolled away and recycled while settling
+            return;
+        }
+        final int size = mCircle.getWidth();
+        final int left = (mSwipeDirection == SwipeDirection.LEFT ? row.getLeft() : row.getRight()) + mCurrentOffset;
+        final int top = (row.getTop() + row.getBottom()) / 2 - size / 2;
+        final Drawable icon = mSwipeDirection == SwipeDirection.LEFT ? mLeftIcon : mRightIcon;
+        InlineIndicator.draw(canvas, mCircle, left, top, MAX_ALPHA, icon, mIconSize, mAlpha);
+    }
+
+    /**
+     * Classes that wish to be notified when a row's swipe gesture triggers an action
+     * should implement this interface.
+     */
+    public interface ActionsListener {
+        void onActionSelected(SwipeDirection direction, int adapterPosition);
+    }
+}
@@ -2,108 +2,230 @@ package com.raistlin.swipeactions;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.Region;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.os.TraceCompat;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
-import android.view.animation.Animation.AnimationListener;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Transformation;
+import android.view.WindowManager;
+import android.widget.AbsListView;
 
-public class SwipeActionsLayout extends ViewGroup {
+import java.util.concurrent.Executor;
+
+public class SwipeActionsLayout extends ViewGroup implements NestedScrollingParent {
 
     private static final String LOG_TAG = SwipeActionsLayout.class.getSimpleName();
 
-    private static final int MAX_ALPHA = 255;
-    private static final int STARTING_PROGRESS_ALPHA = (int) (.3f * MAX_ALPHA);
+    private static final String TRACE_INTERCEPT = "SwipeActions:intercept";
+    private static final String TRACE_TOUCH = "SwipeActions:touch";
+    private static final String TRACE_LAYOUT = "SwipeActions:layout";
+    private static final String TRACE_SETTLE = "SwipeActions:settle";
+
+    static final int MAX_ALPHA = 255;
+    static final int STARTING_PROGRESS_ALPHA = (int) (.3f * MAX_ALPHA);
 
-    private static final int CIRCLE_DIAMETER = 40;
+    static final int CIRCLE_DIAMETER = 40;
 
-    private static final float DECELERATE_INTERPOLATION_FACTOR = 2f;
-    private static final int INVALID_POINTER = -1;
-    private static final float DRAG_RATE = .5f;
+    static final float DECELERATE_INTERPOLATION_FACTOR = 2f;
 
-    private static final int ALPHA_ANIMATION_DURATION = 300;
-    private static final int ANIMATE_TO_TRIGGER_DURATION = 200;
-    private static final int ANIMATE_TO_START_DURATION = 200;
+    static final int ALPHA_ANIMATION_DURATION = 300;
+    static final int ANIMATE_TO_TRIGGER_DURATION = 200;
+    static final int ANIMATE_TO_START_DURATION = 200;
+    // Default release velocity in dips per second that completes an action early
+    private static final int DEFAULT_FLING_VELOCITY = 1000;
 
     // Default background for the progress spinner
-    private static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
+    static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
     // Default offset in dips from the top of the view to where the progress spinner should stop
-    private static final int DEFAULT_CIRCLE_TARGET = 64;
+    static final int DEFAULT_CIRCLE_TARGET = 64;
 
     private SwipeDirection mSwipeDirection = SwipeDirection.NONE;
+    // Direction whose action will trigger if the finger is released now
+    private SwipeDirection mArmedDirection = SwipeDirection.NONE;
 
     private View mTarget; // the target of the gesture
-    private ActionsListener mListener;
-    private int mTouchSlop;
+    private final ActionDispatcher mActionDispatcher = new ActionDispatcher();
+    // Slop, axis lock, pointer tracking and release decisions of the touch gesture
+    private final SwipeGestureStateMachine mGesture;
+    // Null unless gesture tracing is enabled
+    private SwipeGestureTrace mGestureTrace;
+    private int mMaximumFlingVelocity;
+    private VelocityTracker mVelocityTracker;
+    // Milliseconds the indicator may run ahead of the finger; the predictor is null when off
+    private int mTouchPrediction;
+    private TouchPredictor mTouchPredictor;
+    private long mFrameInterval;
     private float mTotalDragDistance = -1;
 
     // Whether or not the starting offset has been determined.
     private boolean mOriginalOffsetCalculated = false;
 
-    private float mInitialMotionX;
-    private float mInitialDownX;
-    private float mInitialDownY;
     private boolean mIsBeingDragged;
-    private int mActivePointerId = INVALID_POINTER;
+    // Whether the target could scroll horizontally when the current gesture started
+    private boolean mTargetCanScroll;
 
-    private final DecelerateInterpolator mDecelerateInterpolator;
-    private static final int[] LAYOUT_ATTRS = new int[]{
-            android.R.attr.enabled
-    };
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper;
+    private boolean mNestedScrollInProgress;
+    // Horizontal scroll left over by a nested scrolling child, in the swipe direction
+    private int mTotalUnconsumed;
+    private float mNestedFlingVelocity;
+
+    // Moves are recorded per event and applied to the indicator once per frame
+    private float mPendingDragDistance;
+    private boolean mDragUpdateScheduled;
 
-    private CircleImageView mLeftImage;
-    private CircleImageView mRightImage;
+    private SwipeIndicator mLeftImage;
+    private SwipeIndicator mRightImage;
 
-    protected CircleImageView mAnimationImage;
-    protected int mFrom;
+    // With lazy indicators the images are borrowed from a window-level pool only while in use
+    private boolean mLazyIndicators;
+    private int mLeftImageRes;
+    private int mRightImageRes;
+    // With inline indicators the layout draws the indicators itself instead of using views
+    private boolean mInlineIndicators;
 
-    private Animation mAlphaStartAnimation;
-    private Animation mAlphaMaxAnimation;
+    protected SwipeIndicator mAnimationImage;
+    private SwipeIndicator mAlphaImage;
+
+    // Position and alpha run on separate channels so they never interrupt each other
+    private final SwipeAnimation mPositionAnimation;
+    private final SwipeAnimation mAlphaAnimation;
 
     private float mSpinnerFinalOffset;
+    private DragPhysics mDragPhysics;
+
+    // Settles follow a spring, so a settle that is caught or retargeted keeps its velocity
+    private final SpringInterpolator mSpring = new SpringInterpolator();
+    private int mSettleTarget;
+    private SwipeAnimation.EndListener mSettleListener;
+    // Reset stopped by a touch, it resumes unless a drag in its direction picks the indicator up
+    private SwipeIndicator mCaughtImage;
+    private float mCaughtVelocity;
+    // Finger travel that brought the indicator to where the current drag picked it up
+    private float mDragBase;
+
+    // Reduced motion as requested by the app, and whether it applies to the current gesture
+    // because of that request or of the system settings
+    private boolean mReducedMotion;
+    private boolean mSkipAnimations;
+
+    // Actions requested by performAction() while another one was animating
+    private final ActionQueue mPendingActions = new ActionQueue();
+
+    private SwipeProgressListener mProgressListener;
+    // Whether the settling indicator is heading for the trigger position, committing the action
+    private boolean mSettlingToTrigger;
+
+    // Null unless a metrics listener is set, which keeps instrumentation free when disabled
+    private SwipeMetricsRecorder mMetricsRecorder;
 
     private int mCircleWidth;
     private int mCircleHeight;
 
-    private Animation.AnimationListener mRefreshListener = new Animation.AnimationListener() {
+    // Opaque part of an indicator, which the target below it does not need to paint
+    private final Rect mOpaqueBounds = new Rect();
+
+    private final SwipeAnimation.UpdateListener mPositionUpdateListener = new SwipeAnimation.UpdateListener() {
+        @Override
+        public void onAnimationUpdate(SwipeAnimation animation, float value) {
+            if (mMetricsRecorder == null) {
+                moveToOffset(mAnimationImage, (int) value);
+            } else {
+                TraceCompat.beginSection(TRACE_SETTLE);
+                try {
+                    moveToOffset(mAnimationImage, (int) value);
+                } finally {
+                    TraceCompat.endSection();
+                }
+            }
+            if (mProgressListener != null && !mIsBeingDragged) {
+                // Once a new drag started, progress follows the dragged indicator instead
+                dispatchSwipeProgress(mAnimationImage, mSettlingToTrigger);
+            }
+        }
+    };
+
+    private final Runnable mApplyDragUpdate = new Runnable() {
         @Override
-        public void onAnimationStart(Animation animation) {
+        public void run() {
+            if (mDragUpdateScheduled) {
+                mDragUpdateScheduled = false;
+                moveSpinner(mPendingDragDistance);
+            }
         }
+    };
 
+    private final SwipeAnimation.UpdateListener mAlphaUpdateListener = new SwipeAnimation.UpdateListener() {
         @Override
-        public void onAnimationRepeat(Animation animation) {
+        public void onAnimationUpdate(SwipeAnimation animation, float value) {
+            mAlphaImage.setDrawableAlpha((int) value);
         }
+    };
 
+    private final SwipeAnimation.EndListener mRefreshListener = new SwipeAnimation.EndListener() {
         @Override
-        public void onAnimationEnd(Animation animation) {
-            mAnimationImage.setVisibility(View.GONE);
-            setColorViewAlpha(MAX_ALPHA);
-            if (mListener != null) {
-                if (mAnimationImage == mLeftImage) {
-                    mListener.onActionSelected(SwipeDirection.LEFT);
-                } else if (mAnimationImage == mRightImage) {
-                    mListener.onActionSelected(SwipeDirection.RIGHT);
-                }
+        public void onAnimationEnd(SwipeAnimation animation) {
+            mAnimationImage.setVisibility(View.INVISIBLE);
+            if (mAlphaImage == mAnimationImage) {
+                mAlphaAnimation.cancel();
+            }
+            mAnimationImage.setAllAlpha(MAX_ALPHA);
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onActionDispatch();
+            }
+            if (mAnimationImage == mLeftImage) {
+                mActionDispatcher.dispatch(SwipeDirection.LEFT);
+            } else if (mAnimationImage == mRightImage) {
+                mActionDispatcher.dispatch(SwipeDirection.RIGHT);
             }
             // Return the circle to its start position
             setTargetOffsetLeftAndRight(mAnimationImage, mAnimationImage.getOriginalOffset() - mAnimationImage.getCurrentTargetOffset(), true /* requires update */);
             mAnimationImage.setCurrentTargetOffset(mAnimationImage.getOriginalOffset());
+            releaseIndicator(mAnimationImage);
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onGestureEnd();
+            }
+            schedulePendingActions();
         }
     };
 
-    private void setColorViewAlpha(int targetAlpha) {
-        getCurrentSwipeView().setAllAlpha(targetAlpha);
-    }
+    private final SwipeAnimation.EndListener mResetListener = new SwipeAnimation.EndListener() {
+        @Override
+        public void onAnimationEnd(SwipeAnimation animation) {
+            if (!mIsBeingDragged || mAnimationImage != getCurrentSwipeView()) {
+                // Back off screen, so the indicator stays out of the draw pass until the next drag
+                mAnimationImage.setVisibility(View.INVISIBLE);
+            }
+            releaseIndicator(mAnimationImage);
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onGestureEnd();
+            }
+            schedulePendingActions();
+        }
+    };
+
+    private final Runnable mRunPendingActions = new Runnable() {
+        @Override
+        public void run() {
+            runPendingActions();
+        }
+    };
 
-    private CircleImageView getCurrentSwipeView() {
+    private SwipeIndicator getCurrentSwipeView() {
         if (mSwipeDirection == SwipeDirection.RIGHT) {
             return mRightImage;
         } else if (mSwipeDirection == SwipeDirection.LEFT) {
@@ -126,38 +248,321 @@ public class SwipeActionsLayout extends ViewGroup {
     public SwipeActionsLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
 
-        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
 
-        setWillNotDraw(false);
-        mDecelerateInterpolator = new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR);
-
-        final TypedArray a = context.obtainStyledAttributes(attrs, LAYOUT_ATTRS);
-        setEnabled(a.getBoolean(0, true));
-        a.recycle();
+        setChildrenDrawingOrderEnabled(true);
+        mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+        mPositionAnimation = new SwipeAnimation(mPositionUpdateListener);
+        mPositionAnimation.setInterpolator(mSpring);
+        mAlphaAnimation = new SwipeAnimation(mAlphaUpdateListener);
 
         TypedArray attr = context.obtainStyledAttributes(attrs, R.styleable.SwipeActionsLayout);
+        setEnabled(attr.getBoolean(R.styleable.SwipeActionsLayout_android_enabled, true));
         int leftImage = attr.getResourceId(R.styleable.SwipeActionsLayout_left_image, -1);
         int rightImage = attr.getResourceId(R.styleable.SwipeActionsLayout_right_image, -1);
+        String dragPhysics = attr.getString(R.styleable.SwipeActionsLayout_drag_physics);
+        mLazyIndicators = attr.getBoolean(R.styleable.SwipeActionsLayout_lazy_indicators, false);
+        mInlineIndicators = attr.getBoolean(R.styleable.SwipeActionsLayout_inline_indicators, false);
+        final float flingVelocity = attr.getDimension(R.styleable.SwipeActionsLayout_fling_velocity,
+                DEFAULT_FLING_VELOCITY * getResources().getDisplayMetrics().density);
+        final int touchPrediction = attr.getInt(R.styleable.SwipeActionsLayout_touch_prediction, 0);
+        mReducedMotion = attr.getBoolean(R.styleable.SwipeActionsLayout_reduced_motion, false);
         attr.recycle();
 
         final DisplayMetrics metrics = getResources().getDisplayMetrics();
         mCircleWidth = (int) (CIRCLE_DIAMETER * metrics.density);
         mCircleHeight = (int) (CIRCLE_DIAMETER * metrics.density);
 
-        createProgressView(leftImage, rightImage);
+        mLeftImageRes = leftImage;
+        mRightImageRes = rightImage;
+        if (mInlineIndicators) {
+            // Inline indicators replace the pooled ones
+            mLazyIndicators = false;
+        }
+        createIndicators();
         // the absolute offset has to take into account that the circle starts at an offset
         mSpinnerFinalOffset = DEFAULT_CIRCLE_TARGET * metrics.density;
         mTotalDragDistance = mSpinnerFinalOffset;
+        final DragPhysics physics = dragPhysics != null ? parseDragPhysics(dragPhysics) : new TensionDragPhysics();
+        mGesture = new SwipeGestureStateMachine(configuration.getScaledTouchSlop(), mTotalDragDistance, physics);
+        mGesture.setFlingVelocity(flingVelocity);
+        setDragPhysics(physics);
+        setTouchPrediction(touchPrediction);
+    }
+
+    private static DragPhysics parseDragPhysics(String name) {
+        String fullName = name;
+        if (name.startsWith(".")) {
+            // Relative names refer to the physics shipped with the library
+            fullName = SwipeActionsLayout.class.getPackage().getName() + name;
+        }
+        try {
+            return (DragPhysics) Class.forName(fullName).newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not inflate DragPhysics subclass " + fullName, e);
+        }
+    }
+
+    private void createIndicators() {
+        mOriginalOffsetCalculated = false;
+        if (mInlineIndicators) {
+            createInlineIndicators();
+        } else if (!mLazyIndicators) {
+            createProgressView(mLeftImageRes, mRightImageRes);
+        }
     }
 
     private void createProgressView(int leftImage, int rightImage) {
-        mLeftImage = new CircleImageView(getContext(), CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, leftImage);
-        mLeftImage.setVisibility(View.GONE);
-        addView(mLeftImage);
+        final CircleImageView left = new CircleImageView(getContext(), CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, leftImage);
+        left.setVisibility(View.INVISIBLE);
+        addView(left);
+        mLeftImage = left;
+
+        final CircleImageView right = new CircleImageView(getContext(), CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, rightImage);
+        right.setVisibility(View.INVISIBLE);
+        addView(right);
+        mRightImage = right;
+    }
+
+    private void createInlineIndicators() {
+        final InlineIndicator left = new InlineIndicator(this, CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, mLeftImageRes);
+        left.setOriginalOffset(-left.getSize());
+        left.setCurrentTargetOffset(-left.getSize());
+        mLeftImage = left;
+
+        final InlineIndicator right = new InlineIndicator(this, CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, mRightImageRes);
+        right.setOriginalOffset(0);
+        right.setCurrentTargetOffset(0);
+        mRightImage = right;
+    }
+
+    private void discardIndicators() {
+        cancelSettle();
+        mAlphaAnimation.cancel();
+        if (mLazyIndicators) {
+            releaseIndicator(mLeftImage);
+            releaseIndicator(mRightImage);
+        } else if (!mInlineIndicators) {
+            removeView((View) mLeftImage);
+            removeView((View) mRightImage);
+        }
+        mLeftImage = null;
+        mRightImage = null;
+        invalidate();
+    }
+
+    /**
+     * With lazy indicators the layout has no indicator views of its own. An indicator is
+     * borrowed from a pool shared by the window when a drag starts and returned once it
+     * has settled, which saves views on screens with many layouts. Turns inline
+     * indicators off.
+     */
+    public void setLazyIndicators(boolean lazyIndicators) {
+        if (mLazyIndicators == lazyIndicators) {
+            return;
+        }
+        discardIndicators();
+        mLazyIndicators = lazyIndicators;
+        if (lazyIndicators) {
+            mInlineIndicators = false;
+        }
+        createIndicators();
+    }
+
+    public boolean isLazyIndicators() {
+        return mLazyIndicators;
+    }
+
+    /**
+     * With inline indicators the layout draws the indicators on its own canvas instead of
+     * adding a view for each of them, so it has no children besides the target. The
+     * shadow is always pre-rendered, also where views would use elevation. Turns lazy
+     * indicators off.
+     */
+    public void setInlineIndicators(boolean inlineIndicators) {
+        if (mInlineIndicators == inlineIndicators) {
+            return;
+        }
+        discardIndicators();
+        mInlineIndicators = inlineIndicators;
+        if (inlineIndicators) {
+            mLazyIndicators = false;
+        }
+        createIndicators();
+        requestLayout();
+    }
+
+    public boolean isInlineIndicators() {
+        return mInlineIndicators;
+    }
+
+    private void ensureIndicator() {
+        if (!mLazyIndicators || getCurrentSwipeView() != null) {
+            return;
+        }
+        final boolean left = mSwipeDirection == SwipeDirection.LEFT;
+        final CircleImageView indicator = IndicatorPool.get(this).acquire(this, CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2,
+                left ? mLeftImageRes : mRightImageRes);
+        indicator.measure(MeasureSpec.makeMeasureSpec(mCircleWidth, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(mCircleHeight, MeasureSpec.EXACTLY));
+        final int originalOffset = left ? -indicator.getMeasuredWidth() : 0;
+        indicator.setOriginalOffset(originalOffset);
+        indicator.setCurrentTargetOffset(originalOffset);
+        // The previous borrower may have left a translation behind
+        ViewCompat.setTranslationX(indicator, 0);
+        layoutIndicator(indicator, left ? 0 : mTarget.getMeasuredWidth(), getMeasuredHeight());
+        if (left) {
+            mLeftImage = indicator;
+        } else {
+            mRightImage = indicator;
+        }
+    }
+
+    private void releaseIndicator(SwipeIndicator indicator) {
+        if (!mLazyIndicators || indicator == null) {
+            return;
+        }
+        if (mIsBeingDragged && indicator == getCurrentSwipeView()) {
+            // A new drag has picked up the indicator while it was settling
+            return;
+        }
+        if (indicator == mLeftImage) {
+            mLeftImage = null;
+        } else if (indicator == mRightImage) {
+            mRightImage = null;
+        }
+        IndicatorPool.get(this).release(this, (CircleImageView) indicator);
+    }
+
+    /**
+     * Parses the given indicator images on a background thread, so that layouts inflated
+     * later share the already loaded drawables. Call it early, e.g. from
+     * {@code Application.onCreate()}.
+     */
+    public static void prewarm(Context context, int... drawableRes) {
+        IndicatorResources.prewarm(context, drawableRes);
+    }
+
+    /**
+     * Set the curve mapping finger movement onto the indicator position.
+     */
+    public void setDragPhysics(DragPhysics dragPhysics) {
+        mDragPhysics = dragPhysics;
+        mDragPhysics.configure(mTotalDragDistance, mSpinnerFinalOffset);
+        mGesture.setDragPhysics(dragPhysics);
+    }
+
+    public DragPhysics getDragPhysics() {
+        return mDragPhysics;
+    }
+
+    /**
+     * Set the release velocity, in pixels per second, that triggers the action even if the
+     * drag did not reach the trigger distance. Zero or less disables fling triggering.
+     */
+    public void setFlingVelocity(float flingVelocity) {
+        mGesture.setFlingVelocity(flingVelocity);
+    }
+
+    public float getFlingVelocity() {
+        return mGesture.getFlingVelocity();
+    }
+
+    /**
+     * Enable low latency input. The indicator is then placed where the finger is expected
+     * to be when the next frame is shown, extrapolated from every motion sample batched into
+     * the touch events, and touch events are dispatched unbuffered from Lollipop on.
+     *
+     * @param maxPredictionMillis how far ahead of the latest sample the indicator may be
+     *                            extrapolated; zero or less disables low latency input
+     */
+    public void setTouchPrediction(int maxPredictionMillis) {
+        mTouchPrediction = Math.max(0, maxPredictionMillis);
+        if (mTouchPrediction == 0) {
+            mTouchPredictor = null;
+            return;
+        }
+        if (mTouchPredictor == null) {
+            mTouchPredictor = new TouchPredictor();
+            final Display display = ((WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
+            final float refreshRate = display.getRefreshRate();
+            mFrameInterval = (long) (1000 / (refreshRate > 0 ? refreshRate : 60));
+        }
+    }
+
+    public int getTouchPrediction() {
+        return mTouchPrediction;
+    }
+
+    /**
+     * In reduced motion mode nothing is animated: a released indicator disappears at once,
+     * the action is dispatched on release and {@link #performAction} never animates. The
+     * mode is also on whenever the system animator duration scale is 0 or, from Lollipop
+     * on, battery saver is on. A change of the animator duration scale takes effect once
+     * the layout is attached again.
+     */
+    public void setReducedMotion(boolean reducedMotion) {
+        mReducedMotion = reducedMotion;
+        mSkipAnimations = shouldSkipAnimations();
+    }
+
+    /**
+     * @return whether the app requested reduced motion, regardless of the system settings
+     */
+    public boolean isReducedMotion() {
+        return mReducedMotion;
+    }
+
+    private boolean shouldSkipAnimations() {
+        return mReducedMotion || SystemMotionSettings.isReducedMotion();
+    }
+
+    /**
+     * Set a listener receiving timing metrics for every swipe, and enable trace sections for
+     * intercept, touch, layout and settle work. Pass null to turn the instrumentation off.
+     */
+    public void setSwipeMetricsListener(SwipeMetricsListener listener) {
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.release();
+        }
+        mMetricsRecorder = listener != null ? new SwipeMetricsRecorder(this, listener) : null;
+    }
+
+    /**
+     * Record the touch samples the swipe gesture receives into a ring buffer of the given
+     * size in bytes, dropping the oldest gestures when it is full. A few kilobytes hold
+     * dozens of swipes. Zero or less stops recording and discards the trace.
+     */
+    public void setGestureTraceCapacity(int capacityBytes) {
+        mGestureTrace = capacityBytes > 0 ? new SwipeGestureTrace(capacityBytes) : null;
+    }
+
+    /**
+     * @return the recorded gestures for {@link SwipeGestureReplayer}, or null if gesture
+     * tracing is off
+     */
+    public byte[] getGestureTrace() {
+        return mGestureTrace != null ? mGestureTrace.toByteArray() : null;
+    }
 
-        mRightImage = new CircleImageView(getContext(), CIRCLE_BG_LIGHT, CIRCLE_DIAMETER / 2, rightImage);
-        mRightImage.setVisibility(View.GONE);
-        addView(mRightImage);
+    /**
+     * Set a listener following the indicator while it is dragged and while it settles.
+     * Pass null to remove it.
+     */
+    public void setSwipeProgressListener(SwipeProgressListener listener) {
+        mProgressListener = listener;
+    }
+
+    /**
+     * Reports where the indicator is, both while dragged and while settling, so the fraction
+     * carries on from the same value when the finger lifts.
+     */
+    private void dispatchSwipeProgress(SwipeIndicator indicator, boolean armed) {
+        final SwipeDirection direction = indicator == mLeftImage ? SwipeDirection.LEFT : SwipeDirection.RIGHT;
+        final int offset = Math.abs(indicator.getCurrentTargetOffset() - indicator.getOriginalOffset());
+        mProgressListener.onSwipeProgress(direction.ordinal(), offset / mDragPhysics.getIndicatorOffset(mTotalDragDistance),
+                offset, armed);
     }
 
     /**
@@ -165,35 +570,274 @@ public class SwipeActionsLayout extends ViewGroup {
      * gesture.
      */
     public void setActionsListener(ActionsListener listener) {
-        mListener = listener;
+        mActionDispatcher.clearListeners();
+        if (listener != null) {
+            mActionDispatcher.addListener(listener);
+        }
+    }
+
+    /**
+     * Add a listener to be notified when an action is triggered. Listeners may be added and
+     * removed from any thread, including from within a callback.
+     *
+     * @throws IllegalArgumentException if the listener is null
+     */
+    public void addActionsListener(ActionsListener listener) {
+        mActionDispatcher.addListener(listener);
+    }
+
+    public void removeActionsListener(ActionsListener listener) {
+        mActionDispatcher.removeListener(listener);
+    }
+
+    /**
+     * Deliver actions on the given executor instead of synchronously on the UI thread, so
+     * slow listeners do not hold up the next frame. Actions of the same direction that
+     * trigger before the previous ones were delivered are merged into one callback; see
+     * {@link BatchedActionsListener}. Pass null to restore synchronous delivery.
+     */
+    public void setActionExecutor(Executor executor) {
+        mActionDispatcher.setExecutor(executor);
+    }
+
+    /**
+     * Prepares the layout for another item when it is recycled, e.g. from
+     * {@code onBindViewHolder()}. Does what {@link #reset()} does and then binds the token,
+     * which actions triggered from now on carry; see {@link BoundActionsListener}. Actions
+     * of an earlier token that were not delivered yet are dropped.
+     */
+    public void bind(Object token) {
+        reset();
+        mActionDispatcher.setToken(token);
+    }
+
+    public Object getBoundToken() {
+        return mActionDispatcher.getToken();
+    }
+
+    /**
+     * Abandons the current gesture and stops all animations without dispatching their
+     * actions, and returns the indicators to their original offsets.
+     */
+    public void reset() {
+        cancelDragUpdate();
+        cancelSettle();
+        clearPendingActions();
+        mAlphaAnimation.cancel();
+        mGesture.onTouchEvent(SwipeGestureStateMachine.ACTION_CANCEL, SystemClock.uptimeMillis(),
+                SwipeGestureStateMachine.INVALID_POINTER, 0, 0);
+        setArmedDirection(SwipeDirection.NONE);
+        mIsBeingDragged = false;
+        // A nested scroll in progress is abandoned too, or it would keep touches from swiping
+        mNestedScrollInProgress = false;
+        mTotalUnconsumed = 0;
+        mNestedFlingVelocity = 0;
+        mSwipeDirection = SwipeDirection.NONE;
+        mDragBase = 0;
+        resetIndicator(mLeftImage);
+        resetIndicator(mRightImage);
+        releaseIndicator(mLeftImage);
+        releaseIndicator(mRightImage);
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.release();
+        }
+    }
+
+    private void resetIndicator(SwipeIndicator indicator) {
+        if (indicator == null) {
+            return;
+        }
+        moveToOffset(indicator, indicator.getOriginalOffset());
+        indicator.setVisibility(View.INVISIBLE);
+        indicator.setAllAlpha(MAX_ALPHA);
+        indicator.setScaledProgress(1f);
+    }
+
+    /**
+     * Triggers the action of the given direction as if it had been swiped, e.g. for keyboard,
+     * D-pad or automation input. With {@code animate} the indicator moves to the trigger
+     * position before the action is dispatched, otherwise it is dispatched right away.
+     * Actions requested while another one is animating or a swipe is in progress are queued
+     * and dispatched in order. Once more than one is waiting, the running animation is
+     * fast-forwarded and all but the last queued action skip theirs, so rapid requests are
+     * never held up by the animation. Call it on the UI thread.
+     */
+    public void performAction(SwipeDirection direction, boolean animate) {
+        if (direction == SwipeDirection.NONE) {
+            throw new IllegalArgumentException("An action needs a direction");
+        }
+        if (!mIsBeingDragged) {
+            mSkipAnimations = shouldSkipAnimations();
+        }
+        if (!mPendingActions.isEmpty() || mIsBeingDragged || mSettlingToTrigger && isSettling()) {
+            mPendingActions.add(direction, animate);
+            if (mPendingActions.size() > 1 && mSettlingToTrigger) {
+                finishSettle();
+            }
+            return;
+        }
+        startAction(direction, animate);
+    }
+
+    private void startAction(SwipeDirection direction, boolean animate) {
+        ensureTarget();
+        // Let go of an indicator held by a touch, or its release would send it home and
+        // drop the action settling from where it was caught
+        resumeSettle();
+        // Armed and committed at once, like a fling
+        setArmedDirection(direction);
+        mArmedDirection = SwipeDirection.NONE;
+        if (!animate || mSkipAnimations || mTarget == null || getWidth() == 0 || mGesture.isDragging() || mNestedScrollInProgress) {
+            mActionDispatcher.dispatch(direction);
+            return;
+        }
+        mSwipeDirection = direction;
+        ensureIndicator();
+        final SwipeIndicator indicator = getCurrentSwipeView();
+        mSwipeDirection = SwipeDirection.NONE;
+        indicator.setAllAlpha(MAX_ALPHA);
+        indicator.setScaledProgress(1f);
+        indicator.setVisibility(View.VISIBLE);
+        animateOffsetToCorrectPosition(indicator, 0, mRefreshListener);
+    }
+
+    /**
+     * Runs the queued actions with the next frame, unless a swipe or a committed action is
+     * in progress by then. Called whenever the layout becomes idle.
+     */
+    private void schedulePendingActions() {
+        if (!mPendingActions.isEmpty()) {
+            // Posted, as settle end listeners may run from within startSettle()
+            removeCallbacks(mRunPendingActions);
+            ViewCompat.postOnAnimation(this, mRunPendingActions);
+        }
+    }
+
+    private void runPendingActions() {
+        if (mIsBeingDragged || mSettlingToTrigger && isSettling()) {
+            // Run once the swipe or the action in progress has settled
+            return;
+        }
+        while (!mPendingActions.isEmpty()) {
+            final boolean animate = mPendingActions.isAnimated() && mPendingActions.size() == 1;
+            startAction(mPendingActions.poll(), animate);
+        }
     }
 
-    private void completeAction() {
+    private void clearPendingActions() {
+        mPendingActions.clear();
+        removeCallbacks(mRunPendingActions);
+    }
+
+    private void completeAction(float velocity) {
         ensureTarget();
-        animateOffsetToCorrectPosition(getCurrentSwipeView(), getCurrentSwipeView().getCurrentTargetOffset(), mRefreshListener);
+        animateOffsetToCorrectPosition(getCurrentSwipeView(), velocity, mRefreshListener);
+    }
+
+    private void trackVelocity(MotionEvent ev) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        if (MotionEventCompat.getActionMasked(ev) == MotionEvent.ACTION_DOWN) {
+            // The tracker is reused by every gesture of this layout
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(ev);
+    }
+
+    /**
+     * @return finger velocity in px per second, positive in the swipe direction
+     */
+    private float getReleaseVelocity() {
+        mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+        return mSwipeDirection.getMultiplier() * mVelocityTracker.getXVelocity(mGesture.getActivePointerId());
+    }
+
+    /**
+     * @return indicator movement per pixel of finger movement at the given drag distance
+     */
+    private float getDragSlope(float dragDistance) {
+        final float drag = Math.max(0, dragDistance);
+        return getDragOffset(drag + 1) - getDragOffset(drag);
+    }
+
+    private float getDragOffset(float dragDistance) {
+        return mDragPhysics.getIndicatorOffset(Math.max(0, mDragPhysics.getOverscroll(dragDistance)));
+    }
+
+    /**
+     * @return finger travel that places the indicator at the given distance from its
+     * original offset
+     */
+    private float findDragDistance(int offset) {
+        // Drag physics only map finger travel onto the indicator, so search the monotonic curve
+        float low = 0;
+        float high = mTotalDragDistance;
+        for (int i = 0; i < 8 && getDragOffset(high) < offset; i++) {
+            low = high;
+            high *= 2;
+        }
+        for (int i = 0; i < 16; i++) {
+            final float middle = (low + high) / 2;
+            if (getDragOffset(middle) < offset) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
     }
 
     private void startProgressAlphaStartAnimation() {
-        mAlphaStartAnimation = startAlphaAnimation(getCurrentSwipeView().getDrawableAlpha(), STARTING_PROGRESS_ALPHA);
+        startAlphaAnimation(getCurrentSwipeView().getDrawableAlpha(), STARTING_PROGRESS_ALPHA);
     }
 
     private void startProgressAlphaMaxAnimation() {
-        mAlphaMaxAnimation = startAlphaAnimation(getCurrentSwipeView().getDrawableAlpha(), MAX_ALPHA);
+        startAlphaAnimation(getCurrentSwipeView().getDrawableAlpha(), MAX_ALPHA);
     }
 
-    private Animation startAlphaAnimation(final int startingAlpha, final int endingAlpha) {
-        Animation alpha = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                getCurrentSwipeView().setDrawableAlpha((int) (startingAlpha + ((endingAlpha - startingAlpha) * interpolatedTime)));
-            }
-        };
-        alpha.setDuration(ALPHA_ANIMATION_DURATION);
-        // Clear out the previous animation listeners.
-        getCurrentSwipeView().setAnimationListener(null);
-        getCurrentSwipeView().clearAnimation();
-        getCurrentSwipeView().startAnimation(alpha);
-        return alpha;
+    private void startAlphaAnimation(int startingAlpha, int endingAlpha) {
+        mAlphaImage = getCurrentSwipeView();
+        if (mSkipAnimations) {
+            mAlphaAnimation.cancel();
+            mAlphaImage.setDrawableAlpha(endingAlpha);
+            return;
+        }
+        mAlphaAnimation.start(startingAlpha, endingAlpha, ALPHA_ANIMATION_DURATION, null);
+    }
+
+    private boolean isAlphaAnimationRunning(int endingAlpha) {
+        return mAlphaImage == getCurrentSwipeView() && mAlphaAnimation.isRunningTo(endingAlpha);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // Battery saver is followed by a receiver, the animator scale is read here
+        SystemMotionSettings.refresh(getContext());
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        cancelDragUpdate();
+        // No more frames will come, so a committed action is delivered now instead
+        finishSettle();
+        cancelSettle();
+        clearPendingActions();
+        mAlphaAnimation.cancel();
+        setArmedDirection(SwipeDirection.NONE);
+        resetIndicator(mLeftImage);
+        resetIndicator(mRightImage);
+        releaseIndicator(mLeftImage);
+        releaseIndicator(mRightImage);
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.release();
+        }
     }
 
     private void ensureTarget() {
@@ -210,6 +854,19 @@ public class SwipeActionsLayout extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        if (mMetricsRecorder == null) {
+            layoutChildren();
+            return;
+        }
+        TraceCompat.beginSection(TRACE_LAYOUT);
+        try {
+            layoutChildren();
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    private void layoutChildren() {
         final int width = getMeasuredWidth();
         final int height = getMeasuredHeight();
         if (getChildCount() == 0) {
@@ -227,15 +884,99 @@ public class SwipeActionsLayout extends ViewGroup {
         final int childWidth = width - getPaddingLeft() - getPaddingRight();
         final int childHeight = height - getPaddingTop() - getPaddingBottom();
         child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
-        int circleWidth = mLeftImage.getMeasuredWidth();
-        int circleHeight = mLeftImage.getMeasuredHeight();
-        if (mSwipeDirection == SwipeDirection.LEFT) {
-            mLeftImage.layout(mLeftImage.getCurrentTargetOffset(), (height / 2 - circleHeight / 2),
-                    mLeftImage.getCurrentTargetOffset() + circleWidth, (height / 2 + circleHeight / 2));
-        } else if (mSwipeDirection == SwipeDirection.RIGHT) {
-            mRightImage.layout(mTarget.getMeasuredWidth() + mRightImage.getCurrentTargetOffset(), (height / 2 - circleHeight / 2),
-                    mTarget.getMeasuredWidth() + mRightImage.getCurrentTargetOffset() + circleWidth, (height / 2 + circleHeight / 2));
+        if (mInlineIndicators) {
+            ((InlineIndicator) mLeftImage).layout(0, height);
+            ((InlineIndicator) mRightImage).layout(mTarget.getMeasuredWidth(), height);
+            return;
+        }
+        if (mLazyIndicators && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            // Pooled indicators in the overlay are laid out when borrowed
+            return;
+        }
+        layoutIndicator((CircleImageView) mLeftImage, 0, height);
+        layoutIndicator((CircleImageView) mRightImage, mTarget.getMeasuredWidth(), height);
+    }
+
+    /**
+     * Places the indicator at its original offset. Drags and settles only change its
+     * translation, so they never need another layout pass.
+     */
+    private void layoutIndicator(CircleImageView indicator, int edge, int height) {
+        if (indicator == null) {
+            return;
+        }
+        final int circleWidth = indicator.getMeasuredWidth();
+        final int circleHeight = indicator.getMeasuredHeight();
+        final int circleLeft = edge + (translationSupported() ? indicator.getOriginalOffset() : indicator.getCurrentTargetOffset());
+        indicator.layout(circleLeft, (height / 2 - circleHeight / 2), circleLeft + circleWidth, (height / 2 + circleHeight / 2));
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mInlineIndicators && mTarget != null) {
+            // Drawn after the children, which keeps them above the target
+            ((InlineIndicator) mLeftImage).draw(canvas);
+            ((InlineIndicator) mRightImage).draw(canvas);
+        }
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (child != mTarget || !canClipOut(canvas)) {
+            return super.drawChild(canvas, child, drawingTime);
+        }
+        // The target does not paint below the opaque part of a visible indicator
+        int saveCount = -1;
+        saveCount = clipOutIndicator(canvas, mLeftImage, saveCount);
+        saveCount = clipOutIndicator(canvas, mRightImage, saveCount);
+        final boolean more = super.drawChild(canvas, child, drawingTime);
+        if (saveCount >= 0) {
+            canvas.restoreToCount(saveCount);
+        }
+        return more;
+    }
+
+    private int clipOutIndicator(Canvas canvas, SwipeIndicator indicator, int saveCount) {
+        if (indicator == null || !indicator.getOpaqueBounds(mOpaqueBounds)
+                || !mOpaqueBounds.intersect(mTarget.getLeft(), mTarget.getTop(), mTarget.getRight(), mTarget.getBottom())) {
+            return saveCount;
+        }
+        if (saveCount < 0) {
+            saveCount = canvas.save();
+        }
+        canvas.clipRect(mOpaqueBounds, Region.Op.DIFFERENCE);
+        return saveCount;
+    }
+
+    private static boolean canClipOut(Canvas canvas) {
+        // A hardware canvas clips to anything but a rectangle with the stencil, which costs
+        // more than the overdraw it saves
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB || !canvas.isHardwareAccelerated();
+    }
+
+    private static boolean translationSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    @Override
+    protected int getChildDrawingOrder(int childCount, int i) {
+        // Indicators are drawn after the other children, which keeps them above the target
+        // without reordering children during a drag
+        int position = -1;
+        for (int index = 0; index < childCount; index++) {
+            final View child = getChildAt(index);
+            if (child != mLeftImage && child != mRightImage && ++position == i) {
+                return index;
+            }
         }
+        for (int index = 0; index < childCount; index++) {
+            final View child = getChildAt(index);
+            if ((child == mLeftImage || child == mRightImage) && ++position == i) {
+                return index;
+            }
+        }
+        return i;
     }
 
     @Override
@@ -251,14 +992,19 @@ public class SwipeActionsLayout extends ViewGroup {
                 getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
                 MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(
                 getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.EXACTLY));
-        mLeftImage.measure(MeasureSpec.makeMeasureSpec(mCircleWidth, MeasureSpec.EXACTLY),
+        if (mLazyIndicators || mInlineIndicators) {
+            return;
+        }
+        final CircleImageView leftImage = (CircleImageView) mLeftImage;
+        final CircleImageView rightImage = (CircleImageView) mRightImage;
+        leftImage.measure(MeasureSpec.makeMeasureSpec(mCircleWidth, MeasureSpec.EXACTLY),
                 MeasureSpec.makeMeasureSpec(mCircleHeight, MeasureSpec.EXACTLY));
-        mRightImage.measure(MeasureSpec.makeMeasureSpec(mCircleWidth, MeasureSpec.EXACTLY),
+        rightImage.measure(MeasureSpec.makeMeasureSpec(mCircleWidth, MeasureSpec.EXACTLY),
                 MeasureSpec.makeMeasureSpec(mCircleHeight, MeasureSpec.EXACTLY));
         if (!mOriginalOffsetCalculated) {
             mOriginalOffsetCalculated = true;
-            mLeftImage.setOriginalOffset(-mLeftImage.getMeasuredWidth());
-            mLeftImage.setCurrentTargetOffset(-mLeftImage.getMeasuredWidth());
+            mLeftImage.setOriginalOffset(-leftImage.getMeasuredWidth());
+            mLeftImage.setCurrentTargetOffset(-leftImage.getMeasuredWidth());
             mRightImage.setOriginalOffset(0);
             mRightImage.setCurrentTargetOffset(0);
         }
@@ -270,282 +1016,545 @@ public class SwipeActionsLayout extends ViewGroup {
 
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (mMetricsRecorder == null) {
+            return interceptTouchEvent(ev);
+        }
+        TraceCompat.beginSection(TRACE_INTERCEPT);
+        try {
+            return interceptTouchEvent(ev);
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    private boolean interceptTouchEvent(MotionEvent ev) {
         ensureTarget();
 
         final int action = MotionEventCompat.getActionMasked(ev);
+        if (action == MotionEvent.ACTION_DOWN) {
+            // Scrollability is sampled once per gesture instead of on every event
+            mTargetCanScroll = canChildScrollHorizontal();
+            if (mMetricsRecorder != null) {
+                // Taken before failing fast, a nested scroll of the child may still start a drag
+                mMetricsRecorder.onDown(ev.getEventTime());
+            }
+        }
 
-        if (!isEnabled() || canChildScrollHorizontal()) {
+        if (!isEnabled() || mTargetCanScroll || mNestedScrollInProgress) {
             // Fail fast if we're not in a state where a swipe is possible
             return false;
         }
+        trackVelocity(ev);
+
+        if (action == MotionEvent.ACTION_DOWN) {
+            // The cached system settings are sampled once per gesture
+            mSkipAnimations = shouldSkipAnimations();
+            // A returning indicator stops under the finger instead of snapping home
+            catchSettle();
+            mIsBeingDragged = false;
+            if (mTouchPredictor != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                // Receive moves as soon as they arrive rather than batched once per frame
+                requestUnbufferedDispatch(ev);
+            }
+        }
+        if (feedGesture(ev, action, 0) == SwipeGestureStateMachine.RESULT_DRAG_STARTED) {
+            startDrag(mGesture.getDirection());
+        } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            resumeSettle();
+        }
+        return mGesture.isDragging();
+    }
 
+    /**
+     * Passes the event to the gesture state machine as a primitive sample of the pointer
+     * it is about.
+     *
+     * @param velocity release velocity, only recorded into the gesture trace
+     * @return one of the {@code SwipeGestureStateMachine.RESULT_} constants
+     */
+    private int feedGesture(MotionEvent ev, int action, float velocity) {
+        final int activePointerId = mGesture.getActivePointerId();
+        final int pointerIndex;
         switch (action) {
             case MotionEvent.ACTION_DOWN:
-                setTargetOffsetLeftAndRight(mLeftImage, mLeftImage.getOriginalOffset() - mLeftImage.getLeft(), true);
-                setTargetOffsetLeftAndRight(mRightImage, mTarget.getMeasuredWidth() + mRightImage.getOriginalOffset(), true);
-                mActivePointerId = ev.getPointerId(0);
-                mIsBeingDragged = false;
-                final float initialDownX = getMotionEventX(ev, mActivePointerId);
-                if (initialDownX == -1) {
-                    return false;
-                }
-                mInitialDownX = initialDownX;
-                mInitialDownY = getMotionEventY(ev, mActivePointerId);
+                pointerIndex = 0;
                 break;
+            case MotionEventCompat.ACTION_POINTER_DOWN:
+            case MotionEventCompat.ACTION_POINTER_UP:
+                pointerIndex = MotionEventCompat.getActionIndex(ev);
+                break;
+            default:
+                pointerIndex = ev.findPointerIndex(activePointerId);
+                break;
+        }
+        final int pointerId;
+        final float x;
+        final float y;
+        if (pointerIndex < 0) {
+            if (action != MotionEvent.ACTION_CANCEL) {
+                Log.e(LOG_TAG, "Got touch event " + action + " but have an invalid active pointer id.");
+            }
+            pointerId = SwipeGestureStateMachine.INVALID_POINTER;
+            x = 0;
+            y = 0;
+        } else {
+            pointerId = ev.getPointerId(pointerIndex);
+            x = ev.getX(pointerIndex);
+            y = ev.getY(pointerIndex);
+        }
+        if (mGestureTrace != null) {
+            mGestureTrace.record(action, ev.getEventTime(), pointerId, x, y, velocity);
+        }
+        final int result = mGesture.onTouchEvent(action, ev.getEventTime(), pointerId, x, y);
+        if (mGesture.getActivePointerId() != activePointerId) {
+            clearTouchPrediction();
+        }
+        return result;
+    }
 
-            case MotionEvent.ACTION_MOVE:
-                if (mActivePointerId == INVALID_POINTER) {
-                    Log.e(LOG_TAG, "Got ACTION_MOVE event but don't have an active pointer id.");
-                    return false;
-                }
+    private void startDrag(SwipeDirection direction) {
+        if (mSettlingToTrigger) {
+            // A committed action is delivered now rather than once its indicator has settled
+            finishSettle();
+        } else {
+            catchSettle();
+        }
+        mSwipeDirection = direction;
+        mIsBeingDragged = true;
+        mDragBase = 0;
+        clearTouchPrediction();
+        ensureIndicator();
+        if (mCaughtImage != null && mCaughtImage == getCurrentSwipeView()) {
+            // Continue from where the caught indicator stopped
+            mDragBase = findDragDistance(Math.abs(mCaughtImage.getCurrentTargetOffset() - mCaughtImage.getOriginalOffset()));
+            mCaughtImage = null;
+        } else {
+            resumeSettle();
+        }
+        getCurrentSwipeView().setDrawableAlpha(STARTING_PROGRESS_ALPHA);
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.onDragStart(direction);
+        }
+    }
 
-                final float x = getMotionEventX(ev, mActivePointerId);
-                if (x == -1) {
-                    return false;
-                }
-                final float y = getMotionEventY(ev, mActivePointerId);
-                final float xDiff = x - mInitialDownX;
-                final float yDiff = y - mInitialDownY;
-                if (!mIsBeingDragged) {
-                    if (Math.abs(xDiff) > 3 * Math.abs(yDiff)) {
-                        if (xDiff > mTouchSlop) {
-                            mSwipeDirection = SwipeDirection.LEFT;
-                            mInitialMotionX = mInitialDownX + mTouchSlop;
-                            mIsBeingDragged = true;
-                            getCurrentSwipeView().setDrawableAlpha(STARTING_PROGRESS_ALPHA);
-                        } else if (xDiff < -mTouchSlop) {
-                            mSwipeDirection = SwipeDirection.RIGHT;
-                            mInitialMotionX = mInitialDownX - mTouchSlop;
-                            mIsBeingDragged = true;
-                            getCurrentSwipeView().setDrawableAlpha(STARTING_PROGRESS_ALPHA);
-                        }
-                    } else {
-                        // replace the initial point because movement was too horizontal
-                        mInitialDownX = x;
-                        mInitialDownY = y;
-                    }
-                }
-                break;
+    private void setArmedDirection(SwipeDirection direction) {
+        if (mArmedDirection == direction) {
+            return;
+        }
+        final SwipeDirection previous = mArmedDirection;
+        mArmedDirection = direction;
+        if (previous != SwipeDirection.NONE) {
+            mActionDispatcher.dispatchDisarmed(previous);
+        }
+        if (direction != SwipeDirection.NONE) {
+            mActionDispatcher.dispatchArmed(direction);
+        }
+    }
 
-            case MotionEventCompat.ACTION_POINTER_UP:
-                onSecondaryPointerUp(ev);
-                break;
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean b) {
+        // Lists before Lollipop and other targets without nested scrolling ask for this on
+        // any move, vertical or not. Ignore them, or a horizontal swipe could never be
+        // intercepted; only horizontal drags are taken, so their own scrolling still works
+        if ((Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP && mTarget instanceof AbsListView)
+                || (mTarget != null && !ViewCompat.isNestedScrollingEnabled(mTarget))) {
+            // Nope.
+        } else {
+            if (b) {
+                // The rest of the gesture goes to the child, so nothing holds a caught indicator
+                resumeSettle();
+            }
+            super.requestDisallowInterceptTouchEvent(b);
+        }
+    }
 
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL:
-                mIsBeingDragged = false;
-                mSwipeDirection = SwipeDirection.NONE;
-                mActivePointerId = INVALID_POINTER;
-                break;
+    // NestedScrollingParent
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return isEnabled() && !mIsBeingDragged && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_HORIZONTAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        mTotalUnconsumed = 0;
+        mNestedFlingVelocity = 0;
+        mNestedScrollInProgress = true;
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        // Scrolling back first retracts the indicator, then scrolls the content
+        final int retract = mSwipeDirection.getMultiplier() * dx;
+        if (mTotalUnconsumed > 0 && retract > 0) {
+            final int consumedDistance = Math.min(retract, mTotalUnconsumed);
+            mTotalUnconsumed -= consumedDistance;
+            consumed[0] = mSwipeDirection.getMultiplier() * consumedDistance;
+            scheduleDragUpdate(mDragBase + mTotalUnconsumed);
         }
+    }
 
-        return mIsBeingDragged;
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
     }
 
-    private float getMotionEventX(MotionEvent ev, int activePointerId) {
-        final int index = ev.findPointerIndex(activePointerId);
-        if (index < 0) {
-            return -1;
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        mNestedScrollInProgress = false;
+        if (mSwipeDirection != SwipeDirection.NONE) {
+            flushDragUpdate();
+            finishSpinner(mDragBase + mTotalUnconsumed, mNestedFlingVelocity);
+        } else {
+            resumeSettle();
         }
-        return ev.getX(index);
+        mTotalUnconsumed = 0;
+        mNestedFlingVelocity = 0;
     }
 
-    private float getMotionEventY(MotionEvent ev, int activePointerId) {
-        final int index = ev.findPointerIndex(activePointerId);
-        if (index < 0) {
-            return -1;
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        if (!mNestedScrollInProgress || dxUnconsumed == 0) {
+            return;
         }
-        return ev.getY(index);
+        if (mSwipeDirection == SwipeDirection.NONE) {
+            // Scrolling past the start of the content pulls in the left indicator
+            startDrag(dxUnconsumed < 0 ? SwipeDirection.LEFT : SwipeDirection.RIGHT);
+        }
+        mTotalUnconsumed = Math.max(0, mTotalUnconsumed - mSwipeDirection.getMultiplier() * dxUnconsumed);
+        scheduleDragUpdate(mDragBase + mTotalUnconsumed);
     }
 
     @Override
-    public void requestDisallowInterceptTouchEvent(boolean b) {
-        // Nope.
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        if (mTotalUnconsumed > 0) {
+            // The indicator is out, so the release settles it instead of flinging the content
+            mNestedFlingVelocity = -mSwipeDirection.getMultiplier() * velocityX;
+            return true;
+        }
+        return false;
     }
 
-    private boolean isAnimationRunning(Animation animation) {
-        return animation != null && animation.hasStarted() && !animation.hasEnded();
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        return false;
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
+        if (mMetricsRecorder == null) {
+            return handleTouchEvent(ev);
+        }
+        TraceCompat.beginSection(TRACE_TOUCH);
+        final long start = System.nanoTime();
+        try {
+            return handleTouchEvent(ev);
+        } finally {
+            mMetricsRecorder.addTouchTime(System.nanoTime() - start);
+            TraceCompat.endSection();
+        }
+    }
+
+    private boolean handleTouchEvent(MotionEvent ev) {
         final int action = MotionEventCompat.getActionMasked(ev);
 
-        if (!isEnabled() || canChildScrollHorizontal()) {
+        if (!isEnabled() || mTargetCanScroll || mNestedScrollInProgress) {
             // Fail fast if we're not in a state where a swipe is possible
             return false;
         }
+        trackVelocity(ev);
 
-        switch (action) {
-            case MotionEvent.ACTION_DOWN:
-                mActivePointerId = ev.getPointerId(0);
-                mIsBeingDragged = false;
+        if (action == MotionEvent.ACTION_DOWN) {
+            mIsBeingDragged = false;
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onDown(ev.getEventTime());
+            }
+        }
+        final boolean release = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL;
+        // The velocity is read while the state machine still knows the releasing pointer
+        final float velocity = action == MotionEvent.ACTION_UP && mIsBeingDragged ? getReleaseVelocity() : 0;
+        switch (feedGesture(ev, action, velocity)) {
+            case SwipeGestureStateMachine.RESULT_DRAG_STARTED:
+                startDrag(mGesture.getDirection());
                 break;
 
-            case MotionEvent.ACTION_MOVE: {
-                final int pointerIndex = ev.findPointerIndex(mActivePointerId);
-                if (pointerIndex < 0) {
-                    Log.e(LOG_TAG, "Got ACTION_MOVE event but have an invalid active pointer id.");
-                    return false;
+            case SwipeGestureStateMachine.RESULT_DRAGGED: {
+                if (!mIsBeingDragged) {
+                    break;
                 }
+                float dragDistance = mGesture.getDragDistance();
+                if (mTouchPredictor != null) {
+                    mTouchPredictor.addMovement(ev, ev.findPointerIndex(mGesture.getActivePointerId()));
+                    // The indicator moves with the next frame, so aim for where the finger is then
+                    dragDistance = mGesture.getDragDistance(mTouchPredictor.predict(SystemClock.uptimeMillis() + mFrameInterval, mTouchPrediction));
+                }
+                scheduleDragUpdate(mDragBase + dragDistance);
+                break;
+            }
 
-                final float x = getMotionEventX(ev, pointerIndex);
-                if (x == -1) {
-                    return false;
+            case SwipeGestureStateMachine.RESULT_RELEASED:
+                if (mIsBeingDragged) {
+                    flushDragUpdate();
+                    finishSpinner(mDragBase + mGesture.getDragDistance(), velocity);
                 }
-                final float overscroll = mSwipeDirection.getMultiplier() * (x - mInitialMotionX) * DRAG_RATE;
+                break;
+
+            case SwipeGestureStateMachine.RESULT_CANCELLED:
                 if (mIsBeingDragged) {
-                    float originalDragPercent = overscroll / mTotalDragDistance;
-                    if (originalDragPercent < 0) {
-                        return false;
-                    }
-                    float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
-                    float extraOS = Math.abs(overscroll) - mTotalDragDistance;
-                    float slingshotDist = mSpinnerFinalOffset;
-                    float tensionSlingshotPercent = Math.max(0, Math.min(extraOS, slingshotDist * 2) / slingshotDist);
-                    float tensionPercent = (float) ((tensionSlingshotPercent / 4) - Math.pow((tensionSlingshotPercent / 4), 2)) * 2f;
-                    float extraMove = (slingshotDist) * tensionPercent * 2;
-
-                    int targetX = getCurrentSwipeView().getOriginalOffset() + mSwipeDirection.getMultiplier() * (int) ((slingshotDist * dragPercent) + extraMove);
-                    // where 1.0f is a full circle
-                    if (getCurrentSwipeView().getVisibility() != View.VISIBLE) {
-                        getCurrentSwipeView().setVisibility(View.VISIBLE);
-                    }
-                    getCurrentSwipeView().setScaledProgress(1f);
-                    if (overscroll < mTotalDragDistance) {
-                        if (getCurrentSwipeView().getDrawableAlpha() > STARTING_PROGRESS_ALPHA && !isAnimationRunning(mAlphaStartAnimation)) {
-                            // Animate the alpha
-                            startProgressAlphaStartAnimation();
-                        }
-                    } else {
-                        if (getCurrentSwipeView().getDrawableAlpha() < MAX_ALPHA && !isAnimationRunning(mAlphaMaxAnimation)) {
-                            // Animate the alpha
-                            startProgressAlphaMaxAnimation();
-                        }
-                    }
-                    if (mSwipeDirection == SwipeDirection.LEFT) {
-                        setTargetOffsetLeftAndRight(mLeftImage, targetX - mLeftImage.getCurrentTargetOffset(), true /* requires update */);
-                    } else {
-                        setTargetOffsetLeftAndRight(mRightImage, targetX - mRightImage.getCurrentTargetOffset(), true /* requires update */);
-                    }
+                    cancelDragUpdate();
+                    cancelSpinner();
                 }
                 break;
+        }
+        if (release) {
+            resumeSettle();
+        }
+        return !release;
+    }
+
+    /**
+     * Records the latest finger travel. Only the last one recorded before a frame is applied,
+     * so several moves delivered within one frame cost a single indicator update.
+     */
+    private void scheduleDragUpdate(float dragDistance) {
+        mPendingDragDistance = dragDistance;
+        if (!mDragUpdateScheduled) {
+            mDragUpdateScheduled = true;
+            ViewCompat.postOnAnimation(this, mApplyDragUpdate);
+        }
+    }
+
+    /**
+     * Applies a recorded move right away, so a release settles from the latest position.
+     */
+    private void flushDragUpdate() {
+        if (mDragUpdateScheduled) {
+            removeCallbacks(mApplyDragUpdate);
+            mApplyDragUpdate.run();
+        }
+    }
+
+    private void cancelDragUpdate() {
+        if (mDragUpdateScheduled) {
+            mDragUpdateScheduled = false;
+            removeCallbacks(mApplyDragUpdate);
+        }
+    }
+
+    /**
+     * Moves the indicator of the current direction for the given finger travel.
+     */
+    private void moveSpinner(float dragDistance) {
+        final float overscroll = mDragPhysics.getOverscroll(dragDistance);
+        setArmedDirection(mGesture.isArmed(dragDistance) ? mSwipeDirection : SwipeDirection.NONE);
+        if (overscroll < 0) {
+            return;
+        }
+        int targetX = getCurrentSwipeView().getOriginalOffset() + mSwipeDirection.getMultiplier() * (int) mDragPhysics.getIndicatorOffset(overscroll);
+        // where 1.0f is a full circle
+        if (getCurrentSwipeView().getVisibility() != View.VISIBLE) {
+            getCurrentSwipeView().setVisibility(View.VISIBLE);
+        }
+        getCurrentSwipeView().setScaledProgress(1f);
+        if (overscroll < mTotalDragDistance) {
+            if (getCurrentSwipeView().getDrawableAlpha() > STARTING_PROGRESS_ALPHA && !isAlphaAnimationRunning(STARTING_PROGRESS_ALPHA)) {
+                // Animate the alpha
+                startProgressAlphaStartAnimation();
             }
-            case MotionEventCompat.ACTION_POINTER_DOWN: {
-                final int index = MotionEventCompat.getActionIndex(ev);
-                mActivePointerId = ev.getPointerId(index);
-                break;
+        } else {
+            if (getCurrentSwipeView().getDrawableAlpha() < MAX_ALPHA && !isAlphaAnimationRunning(MAX_ALPHA)) {
+                // Animate the alpha
+                startProgressAlphaMaxAnimation();
             }
+        }
+        if (mSwipeDirection == SwipeDirection.LEFT) {
+            setTargetOffsetLeftAndRight(mLeftImage, targetX - mLeftImage.getCurrentTargetOffset(), true /* requires update */);
+        } else {
+            setTargetOffsetLeftAndRight(mRightImage, targetX - mRightImage.getCurrentTargetOffset(), true /* requires update */);
+        }
+        if (mProgressListener != null) {
+            dispatchSwipeProgress(getCurrentSwipeView(), mArmedDirection != SwipeDirection.NONE);
+        }
+    }
 
-            case MotionEventCompat.ACTION_POINTER_UP:
-                onSecondaryPointerUp(ev);
-                break;
-
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL: {
-                if (mActivePointerId == INVALID_POINTER) {
-                    if (action == MotionEvent.ACTION_UP) {
-                        Log.e(LOG_TAG, "Got ACTION_UP event but don't have an active pointer id.");
-                    }
-                    return false;
-                }
-                final int pointerIndex = ev.findPointerIndex(mActivePointerId);
-                final float x = getMotionEventX(ev, pointerIndex);
-                if (x == -1) {
-                    return false;
-                }
-                final float overscrollTop = mSwipeDirection.getMultiplier() * (x - mInitialMotionX) * DRAG_RATE;
-                mIsBeingDragged = false;
-                if (overscrollTop > mTotalDragDistance) {
-                    completeAction();
-                } else {
-                    animateOffsetToStartPosition(getCurrentSwipeView(), getCurrentSwipeView().getCurrentTargetOffset());
-                }
-                mActivePointerId = INVALID_POINTER;
-                mSwipeDirection = SwipeDirection.NONE;
-                return false;
+    /**
+     * Completes or resets the current drag once it is released with the given finger
+     * velocity, positive in the swipe direction.
+     */
+    private void finishSpinner(float dragDistance, float velocity) {
+        // The settle continues from the indicator's release velocity, in offset pixels per second
+        final float indicatorVelocity = mSwipeDirection.getMultiplier() * velocity * getDragSlope(dragDistance);
+        mIsBeingDragged = false;
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.onRelease();
+        }
+        if (mGesture.shouldTrigger(dragDistance, velocity)) {
+            // Flings commit below the trigger distance, so arm them now at the latest
+            setArmedDirection(mSwipeDirection);
+            // The action is committed; it is dispatched once the indicator settles
+            mArmedDirection = SwipeDirection.NONE;
+            completeAction(indicatorVelocity);
+        } else {
+            setArmedDirection(SwipeDirection.NONE);
+            if (getCurrentSwipeView() != null) {
+                animateOffsetToStartPosition(getCurrentSwipeView(), indicatorVelocity);
             }
+            // Nothing is committed, so actions requested during the swipe need not wait
+            schedulePendingActions();
         }
-        return true;
+        mSwipeDirection = SwipeDirection.NONE;
     }
 
-    private void animateOffsetToCorrectPosition(CircleImageView image, int from, AnimationListener listener) {
-        mAnimationImage = image;
-        mFrom = from;
-        mAnimateToCorrectPosition.reset();
-        mAnimateToCorrectPosition.setDuration(ANIMATE_TO_TRIGGER_DURATION);
-        mAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
-        getCurrentSwipeView().setAnimationListener(listener);
-        getCurrentSwipeView().clearAnimation();
-        getCurrentSwipeView().startAnimation(mAnimateToCorrectPosition);
+    /**
+     * Returns the indicator of a cancelled drag to its start, whatever distance it was
+     * dragged, so a cancelled gesture never dispatches its action.
+     */
+    private void cancelSpinner() {
+        mIsBeingDragged = false;
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.onRelease();
+        }
+        setArmedDirection(SwipeDirection.NONE);
+        if (getCurrentSwipeView() != null) {
+            animateOffsetToStartPosition(getCurrentSwipeView(), 0);
+        }
+        mSwipeDirection = SwipeDirection.NONE;
+        schedulePendingActions();
     }
 
-    private void animateOffsetToStartPosition(CircleImageView image, int from) {
-        mAnimationImage = image;
-        mFrom = from;
-        mAnimateToStartPosition.reset();
-        mAnimateToStartPosition.setDuration(ANIMATE_TO_START_DURATION);
-        mAnimateToStartPosition.setInterpolator(mDecelerateInterpolator);
-        getCurrentSwipeView().setAnimationListener(null);
-        getCurrentSwipeView().clearAnimation();
-        getCurrentSwipeView().startAnimation(mAnimateToStartPosition);
+    private void animateOffsetToCorrectPosition(SwipeIndicator image, float velocity, SwipeAnimation.EndListener listener) {
+        int endTarget;
+        if (image == mLeftImage) {
+            endTarget = (int) (mSpinnerFinalOffset - Math.abs(image.getOriginalOffset()));
+        } else {
+            endTarget = (int) (Math.abs(image.getOriginalOffset()) - mSpinnerFinalOffset);
+        }
+        startSettle(image, endTarget, velocity, true, listener);
     }
 
-    private final Animation mAnimateToCorrectPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            int targetLeft;
-            if (mAnimationImage == mLeftImage) {
-                int endTarget = (int) (mSpinnerFinalOffset - Math.abs(mAnimationImage.getOriginalOffset()));
-                targetLeft = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
+    private void animateOffsetToStartPosition(SwipeIndicator image, float velocity) {
+        startSettle(image, image.getOriginalOffset(), velocity, false, mResetListener);
+    }
+
+    /**
+     * Springs the indicator from its current offset to {@code to}. A settle of the same
+     * indicator that is still running is retargeted and keeps its velocity.
+     * <p>
+     * Settles run on the UI thread frame callback. The platform has no public way to move or
+     * fade a view from the RenderThread, its ViewPropertyAnimator included.
+     *
+     * @param velocity starting velocity in offset pixels per second
+     */
+    private void startSettle(SwipeIndicator image, int to, float velocity, boolean toTrigger, SwipeAnimation.EndListener listener) {
+        if (isSettling()) {
+            if (mAnimationImage == image) {
+                velocity = stopSettle();
             } else {
-                int endTarget = (int) (Math.abs(mAnimationImage.getOriginalOffset()) - mSpinnerFinalOffset);
-                targetLeft = (mTarget.getMeasuredWidth() + mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
+                // One spring drives all settles, so the other indicator gets there at once
+                finishSettle();
             }
-            int offset = targetLeft - mAnimationImage.getLeft();
-            setTargetOffsetLeftAndRight(mAnimationImage, offset, false /* requires update */);
         }
-    };
+        mAnimationImage = image;
+        mSettlingToTrigger = toTrigger;
+        mSettleTarget = to;
+        mSettleListener = listener;
+        if (mSkipAnimations) {
+            // Straight to the end, which hides the indicator and dispatches a committed action
+            moveToOffset(image, to);
+            listener.onAnimationEnd(null);
+            return;
+        }
+        final int from = image.getCurrentTargetOffset();
+        mPositionAnimation.start(from, to, mSpring.start(from, to, velocity), listener);
+    }
 
-    private void moveToStart(float interpolatedTime) {
-        int targetLeft;
-        if (mAnimationImage == mLeftImage) {
-            targetLeft = (mFrom + (int) ((mAnimationImage.getOriginalOffset() - mFrom) * interpolatedTime));
-        } else {
-            targetLeft = (mTarget.getMeasuredWidth() + mFrom + (int) ((mAnimationImage.getOriginalOffset() - mFrom) * interpolatedTime));
+    private boolean isSettling() {
+        return mPositionAnimation.isRunning();
+    }
+
+    /**
+     * Stops the running settle where the spring is, without notifying its end listener.
+     *
+     * @return velocity of the indicator at that moment in offset pixels per second
+     */
+    private float stopSettle() {
+        // The offset is up to date with the last frame, so take the velocity at that frame too
+        final long playTime = mPositionAnimation.getPlayTime();
+        mPositionAnimation.cancel();
+        return mSpring.getVelocity(playTime);
+    }
+
+    /**
+     * Jumps the running settle to its target and notifies its end listener.
+     */
+    private void finishSettle() {
+        if (!isSettling()) {
+            return;
+        }
+        final SwipeAnimation.EndListener listener = mSettleListener;
+        cancelSettle();
+        moveToOffset(mAnimationImage, mSettleTarget);
+        if (listener != null) {
+            listener.onAnimationEnd(null);
         }
-        int offset = targetLeft - mAnimationImage.getLeft();
-        setTargetOffsetLeftAndRight(mAnimationImage, offset, false /* requires update */);
     }
 
-    private final Animation mAnimateToStartPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            moveToStart(interpolatedTime);
+    /**
+     * Holds a returning indicator in place, keeping its velocity until the touch either
+     * drags it or lets it go.
+     */
+    private void catchSettle() {
+        if (mSettlingToTrigger || !isSettling()) {
+            // A committed action settles regardless of new touches
+            return;
         }
-    };
+        mCaughtImage = mAnimationImage;
+        mCaughtVelocity = stopSettle();
+    }
+
+    private void resumeSettle() {
+        if (mCaughtImage == null) {
+            return;
+        }
+        final SwipeIndicator image = mCaughtImage;
+        mCaughtImage = null;
+        animateOffsetToStartPosition(image, mCaughtVelocity);
+    }
+
+    private void cancelSettle() {
+        mPositionAnimation.cancel();
+        mCaughtImage = null;
+    }
 
-    private void setTargetOffsetLeftAndRight(CircleImageView view, int offset, boolean requiresUpdate) {
-        view.bringToFront();
-        view.offsetLeftAndRight(offset);
-        if (view == mLeftImage) {
-            view.setCurrentTargetOffset(view.getLeft());
-        } else if (view == mRightImage) {
-            view.setCurrentTargetOffset(view.getLeft() - mTarget.getMeasuredWidth());
+    private void moveToOffset(SwipeIndicator view, int targetOffset) {
+        setTargetOffsetLeftAndRight(view, targetOffset - view.getCurrentTargetOffset(), false /* requires update */);
+    }
+
+    private void setTargetOffsetLeftAndRight(SwipeIndicator indicator, int offset, boolean requiresUpdate) {
+        indicator.setCurrentTargetOffset(indicator.getCurrentTargetOffset() + offset);
+        if (mInlineIndicators) {
+            // Inline indicators are drawn at their current offset and invalidate by themselves
+            return;
         }
-        if (requiresUpdate && android.os.Build.VERSION.SDK_INT < 11) {
-            invalidate();
+        final View view = (View) indicator;
+        if (translationSupported()) {
+            ViewCompat.setTranslationX(view, indicator.getCurrentTargetOffset() - indicator.getOriginalOffset());
+        } else {
+            view.offsetLeftAndRight(offset);
+            if (requiresUpdate) {
+                // Just where the indicator was and is now
+                invalidate(Math.min(view.getLeft(), view.getLeft() - offset), view.getTop(),
+                        Math.max(view.getRight(), view.getRight() - offset), view.getBottom());
+            }
         }
     }
 
-    private void onSecondaryPointerUp(MotionEvent ev) {
-        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-        final int pointerId = ev.getPointerId(pointerIndex);
-        if (pointerId == mActivePointerId) {
-            // This was our active pointer going up. Choose a new
-            // active pointer and adjust accordingly.
-            final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-            mActivePointerId = ev.getPointerId(newPointerIndex);
+    private void clearTouchPrediction() {
+        // Samples of an earlier gesture or another pointer would skew the prediction
+        if (mTouchPredictor != null) {
+            mTouchPredictor.clear();
         }
     }
 
@@ -556,4 +1565,41 @@ public class SwipeActionsLayout extends ViewGroup {
     public interface ActionsListener {
         void onActionSelected(SwipeDirection direction);
     }
+
+    /**
+     * Listeners implementing this interface receive every delivery through
+     * {@link #onActionsSelected(SwipeDirection, int)}, with merged repeats as a single call,
+     * instead of one {@link #onActionSelected(SwipeDirection)} call per action.
+     */
+    public interface BatchedActionsListener extends ActionsListener {
+        void onActionsSelected(SwipeDirection direction, int count);
+    }
+
+    /**
+     * Listeners implementing this interface receive every action through
+     * {@link #onActionSelected(SwipeDirection, Object)} together with the token the layout
+     * was {@link SwipeActionsLayout#bind(Object) bound} to when the action triggered, instead of through
+     * {@link #onActionSelected(SwipeDirection)}.
+     */
+    public interface BoundActionsListener extends ActionsListener {
+        void onActionSelected(SwipeDirection direction, Object token);
+    }
+
+    /**
+     * Listeners implementing this interface are told as soon as releasing the finger would
+     * trigger an action, so they can start preparing for it while the gesture and the
+     * settle animation are still running. Both callbacks arrive on the UI thread.
+     */
+    public interface ArmedActionsListener extends ActionsListener {
+        /**
+         * The drag crossed the trigger distance, or a fling committed the action.
+         * {@link #onActionSelected(SwipeDirection)} follows unless the action is disarmed.
+         */
+        void onActionArmed(SwipeDirection direction);
+
+        /**
+         * The drag fell back below the trigger distance or the gesture was abandoned.
+         */
+        void onActionDisarmed(SwipeDirection direction);
+    }
 }
\ No newline at end of file
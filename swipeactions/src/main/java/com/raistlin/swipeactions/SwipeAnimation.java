@@ -0,0 +1,118 @@
+package com.raistlin.swipeactions;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Reusable animation slot driven by the shared {@link AnimationHandler}. A slot animates
+ * one float value and can be restarted any number of times without allocating.
+ */
+final class SwipeAnimation {
+
+    private final AnimationHandler mHandler;
+    private final UpdateListener mUpdateListener;
+    private Interpolator mInterpolator;
+    private EndListener mEndListener;
+
+    private float mFrom;
+    private float mTo;
+    private float mValue;
+    private long mDuration;
+    private long mStartTime;
+    private long mPlayTime;
+    private boolean mRunning;
+
+    SwipeAnimation(UpdateListener updateListener) {
+        mHandler = AnimationHandler.getInstance();
+        mUpdateListener = updateListener;
+    }
+
+    void setInterpolator(Interpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    /**
+     * Starts animating from {@code from} to {@code to}, replacing whatever this slot was doing.
+     * The end listener is not notified for the replaced run.
+     */
+    void start(float from, float to, long duration, EndListener endListener) {
+        mFrom = from;
+        mTo = to;
+        mValue = from;
+        mDuration = duration;
+        mEndListener = endListener;
+        // The start time is taken from the first frame the animation takes part in
+        mStartTime = -1;
+        mPlayTime = 0;
+        mRunning = true;
+        mHandler.addAnimation(this);
+    }
+
+    /**
+     * Stops the animation at its current value without notifying the end listener.
+     */
+    void cancel() {
+        if (mRunning) {
+            mRunning = false;
+            mEndListener = null;
+            mHandler.removeAnimation(this);
+        }
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    boolean isRunningTo(float to) {
+        return mRunning && mTo == to;
+    }
+
+    float getValue() {
+        return mValue;
+    }
+
+    /**
+     * @return time into the run, in milliseconds, of the frame that produced the current value
+     */
+    long getPlayTime() {
+        return mPlayTime;
+    }
+
+    /**
+     * @return true if the animation has finished and can be removed from the handler
+     */
+    boolean doAnimationFrame(long frameTimeMillis) {
+        if (!mRunning) {
+            return true;
+        }
+        if (mStartTime < 0) {
+            mStartTime = frameTimeMillis;
+        }
+        mPlayTime = frameTimeMillis - mStartTime;
+        float fraction = mDuration > 0 ? (float) mPlayTime / mDuration : 1f;
+        final boolean finished = fraction >= 1f;
+        if (finished) {
+            fraction = 1f;
+        }
+        final float interpolated = mInterpolator != null ? mInterpolator.getInterpolation(fraction) : fraction;
+        mValue = mFrom + (mTo - mFrom) * interpolated;
+        mUpdateListener.onAnimationUpdate(this, mValue);
+        if (finished && mRunning) {
+            mRunning = false;
+            final EndListener endListener = mEndListener;
+            mEndListener = null;
+            if (endListener != null) {
+                endListener.onAnimationEnd(this);
+            }
+        }
+        // The end listener may have restarted this slot
+        return !mRunning;
+    }
+
+    interface UpdateListener {
+        void onAnimationUpdate(SwipeAnimation animation, float value);
+    }
+
+    interface EndListener {
+        void onAnimationEnd(SwipeAnimation animation);
+    }
+}
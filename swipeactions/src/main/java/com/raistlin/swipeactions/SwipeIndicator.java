@@ -0,0 +1,38 @@
+package com.raistlin.swipeactions;
+
+import android.graphics.Rect;
+
+/**
+ * State of a swipe indicator as driven by {@link SwipeActionsLayout}. Offsets are relative
+ * to the edge the indicator belongs to; the layout decides how an offset is shown.
+ */
+interface SwipeIndicator {
+
+    int getVisibility();
+
+    void setVisibility(int visibility);
+
+    void setAllAlpha(int alpha);
+
+    int getDrawableAlpha();
+
+    void setDrawableAlpha(int alpha);
+
+    void setScaledProgress(float progress);
+
+    int getCurrentTargetOffset();
+
+    void setCurrentTargetOffset(int currentTargetOffset);
+
+    int getOriginalOffset();
+
+    void setOriginalOffset(int originalOffset);
+
+    /**
+     * Sets {@code outRect} to a part of the indicator that is painted opaquely, in the
+     * coordinates of the layout.
+     *
+     * @return false if no part of the indicator is known to be opaque, e.g. while hidden or faded
+     */
+    boolean getOpaqueBounds(Rect outRect);
+}
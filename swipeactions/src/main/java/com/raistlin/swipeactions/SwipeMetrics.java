@@ -0,0 +1,74 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Summary of one swipe gesture, reported to a {@link SwipeMetricsListener}. The layout reuses
+ * a single instance, so copy any values that have to outlive the callback.
+ */
+public final class SwipeMetrics {
+
+    SwipeDirection mDirection = SwipeDirection.NONE;
+    long mDragStartLatency;
+    int mFrameCount;
+    int mSlowFrameCount;
+    int mDroppedFrameReportCount;
+    long mTouchTimeNanos;
+    long mActionLatency = -1;
+
+    void reset() {
+        mDirection = SwipeDirection.NONE;
+        mDragStartLatency = 0;
+        mFrameCount = 0;
+        mSlowFrameCount = 0;
+        mDroppedFrameReportCount = 0;
+        mTouchTimeNanos = 0;
+        mActionLatency = -1;
+    }
+
+    public SwipeDirection getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * @return milliseconds from ACTION_DOWN until the layout started dragging
+     */
+    public long getDragStartLatency() {
+        return mDragStartLatency;
+    }
+
+    /**
+     * @return frames rendered from the drag start until the indicator settled
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return frames that took longer than the display's frame interval
+     */
+    public int getSlowFrameCount() {
+        return mSlowFrameCount;
+    }
+
+    /**
+     * @return frames FrameMetrics dropped before reporting them, so they are in neither count
+     * above; always 0 where frames are counted from Choreographer
+     */
+    public int getDroppedFrameReportCount() {
+        return mDroppedFrameReportCount;
+    }
+
+    /**
+     * @return nanoseconds spent in {@code onTouchEvent} during the gesture
+     */
+    public long getTouchTimeNanos() {
+        return mTouchTimeNanos;
+    }
+
+    /**
+     * @return milliseconds from the release until the action was dispatched, or -1 if the
+     * gesture did not trigger an action
+     */
+    public long getActionLatency() {
+        return mActionLatency;
+    }
+}
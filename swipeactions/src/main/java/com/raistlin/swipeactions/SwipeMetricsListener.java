@@ -0,0 +1,9 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Receives a summary of every swipe once its indicator has settled. Set it only for the
+ * sessions that should be measured; a layout without a listener records nothing.
+ */
+public interface SwipeMetricsListener {
+    void onSwipeMetrics(SwipeMetrics metrics);
+}
@@ -0,0 +1,223 @@
+package com.raistlin.swipeactions;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+import android.view.WindowManager;
+
+/**
+ * Collects {@link SwipeMetrics} for a layout. Frames are counted with FrameMetrics where
+ * the layout belongs to a hardware accelerated activity window on Nougat and newer, and from
+ * Choreographer frame deltas otherwise.
+ */
+final class SwipeMetricsRecorder {
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final SwipeMetricsListener mListener;
+    private final SwipeMetrics mMetrics = new SwipeMetrics();
+    // Null before Nougat or outside an activity, used for drags the window renders in hardware
+    private final FrameMetricsCounter mFrameMetricsCounter;
+    private final FrameCounter mFallbackCounter;
+    private FrameCounter mFrameCounter;
+
+    private long mDownTime;
+    private long mReleaseTime;
+    private boolean mDragging;
+
+    SwipeMetricsRecorder(View host, SwipeMetricsListener listener) {
+        mListener = listener;
+        final long frameIntervalNanos = (long) (1000000000L / getRefreshRate(host.getContext()));
+        final Window window = getWindow(host.getContext());
+        mFrameMetricsCounter = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && window != null
+                ? new FrameMetricsCounter(window, frameIntervalNanos) : null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFallbackCounter = new ChoreographerCounter(frameIntervalNanos);
+        } else {
+            mFallbackCounter = new FrameCounter();
+        }
+        mFrameCounter = mFallbackCounter;
+    }
+
+    void onDown(long eventTime) {
+        if (mDragging) {
+            // A new touch caught the previous gesture before it settled
+            onGestureEnd();
+        }
+        mMetrics.reset();
+        mDownTime = eventTime;
+    }
+
+    void onDragStart(SwipeDirection direction) {
+        mDragging = true;
+        mMetrics.mDirection = direction;
+        mMetrics.mDragStartLatency = SystemClock.uptimeMillis() - mDownTime;
+        mFrameCounter.stop();
+        mFrameCounter = mFrameMetricsCounter != null && mFrameMetricsCounter.isAvailable() ? mFrameMetricsCounter : mFallbackCounter;
+        mFrameCounter.start();
+    }
+
+    void addTouchTime(long nanos) {
+        mMetrics.mTouchTimeNanos += nanos;
+    }
+
+    void onRelease() {
+        mReleaseTime = SystemClock.uptimeMillis();
+    }
+
+    void onActionDispatch() {
+        mMetrics.mActionLatency = SystemClock.uptimeMillis() - mReleaseTime;
+    }
+
+    void onGestureEnd() {
+        if (!mDragging) {
+            return;
+        }
+        mDragging = false;
+        mFrameCounter.stop();
+        mMetrics.mFrameCount = mFrameCounter.mFrameCount;
+        mMetrics.mSlowFrameCount = mFrameCounter.mSlowFrameCount;
+        mMetrics.mDroppedFrameReportCount = mFrameCounter.mDroppedReportCount;
+        mListener.onSwipeMetrics(mMetrics);
+    }
+
+    void release() {
+        mDragging = false;
+        mFrameCounter.stop();
+    }
+
+    private static float getRefreshRate(Context context) {
+        final WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        final Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        final float refreshRate = display != null ? display.getRefreshRate() : 0;
+        return refreshRate >= 1 ? refreshRate : DEFAULT_REFRESH_RATE;
+    }
+
+    private static Window getWindow(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).getWindow();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * Counts nothing; used where neither frame source is available.
+     */
+    private static class FrameCounter {
+        int mFrameCount;
+        int mSlowFrameCount;
+        int mDroppedReportCount;
+
+        void start() {
+            mFrameCount = 0;
+            mSlowFrameCount = 0;
+            mDroppedReportCount = 0;
+        }
+
+        void stop() {
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerCounter extends FrameCounter implements Choreographer.FrameCallback {
+        private final long mFrameIntervalNanos;
+        private long mLastFrameTimeNanos;
+        private boolean mRunning;
+
+        ChoreographerCounter(long frameIntervalNanos) {
+            mFrameIntervalNanos = frameIntervalNanos;
+        }
+
+        @Override
+        void start() {
+            super.start();
+            mLastFrameTimeNanos = 0;
+            if (!mRunning) {
+                mRunning = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        @Override
+        void stop() {
+            if (mRunning) {
+                mRunning = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameTimeNanos != 0) {
+                mFrameCount++;
+                // A delta of more than one and a half intervals means a vsync was missed
+                if (frameTimeNanos - mLastFrameTimeNanos > mFrameIntervalNanos * 3 / 2) {
+                    mSlowFrameCount++;
+                }
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private static final class FrameMetricsCounter extends FrameCounter implements Window.OnFrameMetricsAvailableListener {
+        private final Window mWindow;
+        private final long mFrameIntervalNanos;
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private boolean mRunning;
+
+        FrameMetricsCounter(Window window, long frameIntervalNanos) {
+            mWindow = window;
+            mFrameIntervalNanos = frameIntervalNanos;
+        }
+
+        /**
+         * @return whether the window reports frame metrics, which only hardware rendering does
+         */
+        boolean isAvailable() {
+            final View decor = mWindow.peekDecorView();
+            return decor != null && decor.isHardwareAccelerated();
+        }
+
+        @Override
+        void start() {
+            super.start();
+            if (!mRunning) {
+                mRunning = true;
+                mWindow.addOnFrameMetricsAvailableListener(this, mHandler);
+            }
+        }
+
+        @Override
+        void stop() {
+            if (mRunning) {
+                mRunning = false;
+                mWindow.removeOnFrameMetricsAvailableListener(this);
+            }
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            mFrameCount++;
+            if (frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION) > mFrameIntervalNanos) {
+                mSlowFrameCount++;
+            }
+            // Nothing is known about the dropped reports, not even whether their frames were slow
+            mDroppedReportCount += dropCountSinceLastInvocation;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Follows the indicator of a swipe while it is dragged and while it settles. It is called
+ * at most once per frame, from the same frame callbacks that move the indicator, and
+ * only with primitive values so that following a swipe allocates nothing.
+ */
+public interface SwipeProgressListener {
+    /**
+     * @param direction ordinal of the indicator's {@link SwipeDirection}
+     * @param fraction  offset over the offset the indicator has when dragged the trigger
+     *                  distance, 1 and above once it is reached
+     * @param offset    distance in pixels the indicator has moved in from its resting position
+     * @param armed     whether the action triggers if the gesture ends now, or is
+     *                  committed while the indicator settles
+     */
+    void onSwipeProgress(int direction, float fraction, int offset, boolean armed);
+}
@@ -0,0 +1,73 @@
+package com.raistlin.swipeactions;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+/**
+ * Process-wide view of the system settings that ask for reduced motion, so that a gesture
+ * only reads two fields. Battery saver is followed through its broadcast, so checking it
+ * costs no call into the system. The animator duration scale has no broadcast and is read
+ * again whenever a layout is attached.
+ */
+final class SystemMotionSettings {
+
+    private static volatile float sAnimatorScale = 1f;
+    private static volatile boolean sPowerSaveMode;
+
+    // Registered once on the application context, for the lifetime of the process
+    private static BroadcastReceiver sPowerSaveReceiver;
+
+    private SystemMotionSettings() {
+    }
+
+    /**
+     * @return whether the system asks for reduced motion, as of the last refresh
+     */
+    static boolean isReducedMotion() {
+        return sAnimatorScale == 0 || sPowerSaveMode;
+    }
+
+    static void refresh(Context context) {
+        sAnimatorScale = readAnimatorScale(context);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            registerPowerSaveReceiver(context.getApplicationContext());
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static float readAnimatorScale(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(context.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return Settings.System.getFloat(context.getContentResolver(), Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        return 1f;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static synchronized void registerPowerSaveReceiver(Context context) {
+        if (sPowerSaveReceiver != null) {
+            return;
+        }
+        sPowerSaveReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                sPowerSaveMode = readPowerSaveMode(context);
+            }
+        };
+        context.registerReceiver(sPowerSaveReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        sPowerSaveMode = readPowerSaveMode(context);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static boolean readPowerSaveMode(Context context) {
+        final PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+}
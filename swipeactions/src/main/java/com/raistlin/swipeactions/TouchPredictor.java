@@ -0,0 +1,82 @@
+package com.raistlin.swipeactions;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates the horizontal position of a pointer from its recent motion, including the
+ * historical samples batched into each {@link MotionEvent}. Samples are kept in a fixed
+ * ring, so tracking a gesture does not allocate.
+ */
+final class TouchPredictor {
+
+    private static final int MAX_SAMPLES = 8;
+    // Samples older than this, relative to the newest one, are left out of the fit
+    private static final long HISTORY_WINDOW = 40;
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mPositions = new float[MAX_SAMPLES];
+    private int mNewest = -1;
+    private int mCount;
+
+    void clear() {
+        mNewest = -1;
+        mCount = 0;
+    }
+
+    void addMovement(MotionEvent ev, int pointerIndex) {
+        final int historySize = ev.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            addSample(ev.getHistoricalEventTime(h), ev.getHistoricalX(pointerIndex, h));
+        }
+        addSample(ev.getEventTime(), ev.getX(pointerIndex));
+    }
+
+    private void addSample(long time, float x) {
+        mNewest = (mNewest + 1) % MAX_SAMPLES;
+        mTimes[mNewest] = time;
+        mPositions[mNewest] = x;
+        if (mCount < MAX_SAMPLES) {
+            mCount++;
+        }
+    }
+
+    /**
+     * @return the position at the given uptime, extrapolated linearly from the recent samples
+     * but never further than {@code maxPrediction} milliseconds past the newest sample
+     */
+    float predict(long time, long maxPrediction) {
+        final long newestTime = mTimes[mNewest];
+        final float newestX = mPositions[mNewest];
+        // Least squares fit of the velocity around the mean of the recent samples
+        int count = 0;
+        float meanTime = 0;
+        float meanX = 0;
+        for (int i = 0; i < mCount; i++) {
+            final int index = (mNewest - i + MAX_SAMPLES) % MAX_SAMPLES;
+            if (newestTime - mTimes[index] > HISTORY_WINDOW) {
+                break;
+            }
+            meanTime += mTimes[index] - newestTime;
+            meanX += mPositions[index];
+            count++;
+        }
+        if (count < 2) {
+            return newestX;
+        }
+        meanTime /= count;
+        meanX /= count;
+        float covariance = 0;
+        float variance = 0;
+        for (int i = 0; i < count; i++) {
+            final int index = (mNewest - i + MAX_SAMPLES) % MAX_SAMPLES;
+            final float dt = mTimes[index] - newestTime - meanTime;
+            covariance += dt * (mPositions[index] - meanX);
+            variance += dt * dt;
+        }
+        if (variance == 0) {
+            return newestX;
+        }
+        final long horizon = Math.max(0, Math.min(maxPrediction, time - newestTime));
+        return newestX + covariance / variance * horizon;
+    }
+}
@@ -0,0 +1,63 @@
+package com.raistlin.swipeactions;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Queues actions on an executor that runs only when told to: repeats carrying equal tokens
+ * merge into one batch, and a null listener is rejected when it is added.
+ */
+public class ActionDispatcherTest {
+
+    private final List<Runnable> mTasks = new ArrayList<>();
+    private final Executor mExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+    };
+
+    @Test
+    public void equalTokensMerge() {
+        final ActionDispatcher dispatcher = new ActionDispatcher();
+        final List<String> delivered = new ArrayList<>();
+        dispatcher.addListener(new SwipeActionsLayout.BatchedActionsListener() {
+            @Override
+            public void onActionsSelected(SwipeDirection direction, int count) {
+                delivered.add(count + " " + direction);
+            }
+
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+            }
+        });
+        dispatcher.setExecutor(mExecutor);
+        // Rebound to an equal token, as a recycled row is to the same item
+        dispatcher.setToken(new String("item"));
+        dispatcher.dispatch(SwipeDirection.LEFT);
+        dispatcher.setToken(new String("item"));
+        dispatcher.dispatch(SwipeDirection.LEFT);
+        runTasks();
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("2 " + SwipeDirection.LEFT);
+        assertEquals(expected, delivered);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullListener() {
+        new ActionDispatcher().addListener(null);
+    }
+
+    private void runTasks() {
+        for (int i = 0; i < mTasks.size(); i++) {
+            mTasks.get(i).run();
+        }
+        mTasks.clear();
+    }
+}
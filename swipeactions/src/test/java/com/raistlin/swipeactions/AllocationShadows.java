@@ -0,0 +1,312 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.ShapeDrawable;
+import android.support.v4.view.MotionEventCompat;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.accessibility.AccessibilityManager;
+import android.widget.ImageView;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowDrawable;
+import org.robolectric.shadows.ShadowVelocityTracker;
+import org.robolectric.shadows.ShadowView;
+
+import java.util.ArrayList;
+
+/**
+ * Shadows for tests that count allocations. Where Robolectric's own shadows allocate on
+ * paths the platform runs without allocating, these replace them with allocation free
+ * equivalents, so the count only reflects the library.
+ */
+final class AllocationShadows {
+
+    private AllocationShadows() {
+    }
+
+    /**
+     * Keeps a single AccessibilityManager like the platform does, Robolectric creates one on
+     * every lookup, which views do whenever they move or change visibility.
+     */
+    @Implements(AccessibilityManager.class)
+    public static class SingletonAccessibilityManager extends ShadowAccessibilityManager {
+
+        private static AccessibilityManager sInstance;
+
+        @Implementation
+        public static AccessibilityManager getInstance(Context context) throws Exception {
+            if (sInstance == null) {
+                sInstance = ShadowAccessibilityManager.getInstance(context);
+            }
+            return sInstance;
+        }
+    }
+
+    /**
+     * Invalidates image views, which view indicators are, without the proxy Robolectric
+     * creates to reach the real method.
+     */
+    @Implements(ImageView.class)
+    public static class DirectInvalidateImageView extends ShadowView {
+
+        @RealObject
+        private ImageView mRealView;
+
+        @Override
+        @Implementation
+        public void invalidate() {
+            final int scrollX = mRealView.getScrollX();
+            final int scrollY = mRealView.getScrollY();
+            mRealView.invalidate(scrollX, scrollY, scrollX + mRealView.getWidth(), scrollY + mRealView.getHeight());
+        }
+    }
+
+    /**
+     * Invalidates the circle behind view indicators like the platform does, without the
+     * reflective call Robolectric makes to reach the real method.
+     */
+    @Implements(ShapeDrawable.class)
+    public static class DirectInvalidateShapeDrawable extends ShadowDrawable {
+
+        @RealObject
+        private ShapeDrawable mRealDrawable;
+
+        @Override
+        @Implementation
+        public void invalidateSelf() {
+            final Drawable.Callback callback = mRealDrawable.getCallback();
+            if (callback != null) {
+                callback.invalidateDrawable(mRealDrawable);
+            }
+        }
+    }
+
+    /**
+     * Tracks velocity in primitive arrays like the native platform tracker, Robolectric boxes
+     * every sample it is fed. The velocity is the slope between the newest sample of a
+     * pointer and its oldest one within the horizon.
+     */
+    @Implements(VelocityTracker.class)
+    public static class PrimitiveVelocityTracker extends ShadowVelocityTracker {
+
+        private static final int POINTERS = 4;
+        private static final int HISTORY = 10;
+        private static final long HORIZON_MILLIS = 100;
+
+        private final long[] mTimes = new long[POINTERS * HISTORY];
+        private final float[] mX = new float[POINTERS * HISTORY];
+        private final float[] mY = new float[POINTERS * HISTORY];
+        private final int[] mNext = new int[POINTERS];
+        private final int[] mCounts = new int[POINTERS];
+        private final float[] mVelocityX = new float[POINTERS];
+        private final float[] mVelocityY = new float[POINTERS];
+
+        @Override
+        @Implementation
+        public void clear() {
+            for (int id = 0; id < POINTERS; id++) {
+                mNext[id] = 0;
+                mCounts[id] = 0;
+                mVelocityX[id] = 0;
+                mVelocityY[id] = 0;
+            }
+        }
+
+        @Override
+        @Implementation
+        public void addMovement(MotionEvent event) {
+            if (MotionEventCompat.getActionMasked(event) == MotionEvent.ACTION_DOWN) {
+                clear();
+            }
+            for (int i = 0; i < event.getPointerCount(); i++) {
+                final int id = event.getPointerId(i);
+                if (id < 0 || id >= POINTERS) {
+                    continue;
+                }
+                final int slot = id * HISTORY + mNext[id];
+                mTimes[slot] = event.getEventTime();
+                mX[slot] = event.getX(i);
+                mY[slot] = event.getY(i);
+                mNext[id] = (mNext[id] + 1) % HISTORY;
+                mCounts[id] = Math.min(mCounts[id] + 1, HISTORY);
+            }
+        }
+
+        @Override
+        @Implementation
+        public void computeCurrentVelocity(int units) {
+            computeCurrentVelocity(units, Float.MAX_VALUE);
+        }
+
+        @Override
+        @Implementation
+        public void computeCurrentVelocity(int units, float maxVelocity) {
+            for (int id = 0; id < POINTERS; id++) {
+                mVelocityX[id] = 0;
+                mVelocityY[id] = 0;
+                if (mCounts[id] < 2) {
+                    continue;
+                }
+                final int newest = id * HISTORY + (mNext[id] + HISTORY - 1) % HISTORY;
+                int oldest = newest;
+                for (int age = 1; age < mCounts[id]; age++) {
+                    final int slot = id * HISTORY + (mNext[id] + HISTORY - 1 - age) % HISTORY;
+                    if (mTimes[newest] - mTimes[slot] > HORIZON_MILLIS) {
+                        break;
+                    }
+                    oldest = slot;
+                }
+                final long duration = mTimes[newest] - mTimes[oldest];
+                if (duration > 0) {
+                    mVelocityX[id] = clamp((mX[newest] - mX[oldest]) * units / duration, maxVelocity);
+                    mVelocityY[id] = clamp((mY[newest] - mY[oldest]) * units / duration, maxVelocity);
+                }
+            }
+        }
+
+        private static float clamp(float velocity, float maxVelocity) {
+            return Math.max(-maxVelocity, Math.min(velocity, maxVelocity));
+        }
+
+        @Override
+        @Implementation
+        public float getXVelocity() {
+            return getXVelocity(0);
+        }
+
+        @Override
+        @Implementation
+        public float getYVelocity() {
+            return getYVelocity(0);
+        }
+
+        @Override
+        @Implementation
+        public float getXVelocity(int id) {
+            return id >= 0 && id < POINTERS ? mVelocityX[id] : 0;
+        }
+
+        @Override
+        @Implementation
+        public float getYVelocity(int id) {
+            return id >= 0 && id < POINTERS ? mVelocityY[id] : 0;
+        }
+    }
+
+    /**
+     * Holds callbacks until the test runs the frame phase they belong to, instead of posting
+     * each one as a message through reflection.
+     */
+    @Implements(Choreographer.class)
+    public static class ManualChoreographer extends ShadowChoreographer {
+
+        // Callback types of the platform Choreographer, which are hidden
+        static final int CALLBACK_INPUT = 0;
+        static final int CALLBACK_ANIMATION = 1;
+        static final int CALLBACK_TRAVERSAL = 2;
+
+        private static final int CAPACITY = 64;
+
+        private static final int[] sTypes = new int[CAPACITY];
+        private static final Object[] sActions = new Object[CAPACITY];
+        private static final Object[] sTokens = new Object[CAPACITY];
+        private static int sSize;
+        private static final Object[] sRunning = new Object[CAPACITY];
+
+        @Implementation
+        public void postCallbackDelayed(int callbackType, Runnable action, Object token, long delayMillis) {
+            add(callbackType, action, token);
+        }
+
+        @Implementation
+        public void removeCallbacks(int callbackType, Runnable action, Object token) {
+            remove(callbackType, action, token);
+        }
+
+        @Implementation
+        public void postFrameCallbackDelayed(Choreographer.FrameCallback callback, long delayMillis) {
+            add(CALLBACK_ANIMATION, callback, null);
+        }
+
+        @Implementation
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            remove(CALLBACK_ANIMATION, callback, null);
+        }
+
+        private static void add(int type, Object action, Object token) {
+            if (sSize == CAPACITY) {
+                throw new IllegalStateException("Too many pending callbacks");
+            }
+            sTypes[sSize] = type;
+            sActions[sSize] = action;
+            sTokens[sSize] = token;
+            sSize++;
+        }
+
+        private static void remove(int type, Object action, Object token) {
+            int kept = 0;
+            for (int i = 0; i < sSize; i++) {
+                final boolean matches = sTypes[i] == type && (action == null || sActions[i] == action)
+                        && (token == null || sTokens[i] == token);
+                if (!matches) {
+                    sTypes[kept] = sTypes[i];
+                    sActions[kept] = sActions[i];
+                    sTokens[kept] = sTokens[i];
+                    kept++;
+                }
+            }
+            for (int i = kept; i < sSize; i++) {
+                sActions[i] = null;
+                sTokens[i] = null;
+            }
+            sSize = kept;
+        }
+
+        /**
+         * Runs the callbacks of one frame phase posted so far; those they post of the same
+         * type run in the next frame.
+         */
+        static void runCallbacks(int type, long frameTimeMillis) {
+            int count = 0;
+            for (int i = 0; i < sSize; i++) {
+                if (sTypes[i] == type) {
+                    sRunning[count++] = sActions[i];
+                }
+            }
+            remove(type, null, null);
+            for (int i = 0; i < count; i++) {
+                final Object action = sRunning[i];
+                sRunning[i] = null;
+                if (action instanceof Choreographer.FrameCallback) {
+                    ((Choreographer.FrameCallback) action).doFrame(frameTimeMillis * 1000000);
+                } else {
+                    ((Runnable) action).run();
+                }
+            }
+        }
+
+        static int pendingCallbacks(int type) {
+            int count = 0;
+            for (int i = 0; i < sSize; i++) {
+                if (sTypes[i] == type) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        static void clear() {
+            remove(CALLBACK_INPUT, null, null);
+            remove(CALLBACK_ANIMATION, null, null);
+            remove(CALLBACK_TRAVERSAL, null, null);
+            sSize = 0;
+        }
+    }
+}
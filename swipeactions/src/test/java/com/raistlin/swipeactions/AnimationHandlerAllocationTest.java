@@ -0,0 +1,93 @@
+package com.raistlin.swipeactions;
+
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the bytes allocated by the animation phase of each frame, which runs
+ * {@link AnimationHandler#doFrame(long)} and the pending drag update, while a layout is
+ * swiped, settles to the trigger position and resets.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = {
+        AllocationShadows.SingletonAccessibilityManager.class,
+        AllocationShadows.DirectInvalidateImageView.class,
+        AllocationShadows.DirectInvalidateShapeDrawable.class,
+        ManualChoreographer.class})
+public class AnimationHandlerAllocationTest {
+
+    private SwipeHarness mHarness;
+    private long mMeasureOverhead;
+    private long mMaxFrameBytes;
+    private int mMeasuredFrames;
+    private int mActions;
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        mHarness = new SwipeHarness();
+        mHarness.layout.setActionsListener(new SwipeActionsLayout.ActionsListener() {
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                mActions++;
+            }
+        });
+        final long start = SwipeHarness.allocatedBytes();
+        mMeasureOverhead = SwipeHarness.allocatedBytes() - start;
+    }
+
+    @Test
+    public void framesDoNotAllocate() {
+        // The first pass loads classes and fills the indicator caches
+        gestures();
+        mMaxFrameBytes = 0;
+        mMeasuredFrames = 0;
+        mActions = 0;
+
+        gestures();
+
+        assertEquals(2, mActions);
+        assertTrue("Too few frames measured: " + mMeasuredFrames, mMeasuredFrames > 100);
+        assertEquals("Bytes allocated by the worst frame", 0, mMaxFrameBytes);
+    }
+
+    private void gestures() {
+        // Swiped past the trigger both ways, then one that falls short and resets
+        swipe(100, 900);
+        swipe(900, 100);
+        swipe(100, 130);
+    }
+
+    private void swipe(float from, float to) {
+        mHarness.down(from);
+        for (int i = 1; i <= 20; i++) {
+            frame();
+            mHarness.move(from + (to - from) * i / 20);
+        }
+        frame();
+        mHarness.up(to);
+        for (int i = 0; i < 60; i++) {
+            frame();
+        }
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        final long before = SwipeHarness.allocatedBytes();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        final long bytes = SwipeHarness.allocatedBytes() - before - mMeasureOverhead;
+        mMaxFrameBytes = Math.max(mMaxFrameBytes, bytes);
+        mMeasuredFrames++;
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+}
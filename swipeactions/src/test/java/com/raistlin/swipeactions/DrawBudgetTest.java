@@ -0,0 +1,356 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowPaint;
+import org.robolectric.shadows.ShadowView;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Draws a layout on a canvas that counts its operations in every phase of a swipe. Only the
+ * dragged indicator may be drawn, with one operation for its circle and one for its icon,
+ * the target is clipped below it, and nothing is drawn through an offscreen layer. Inline
+ * indicators invalidate just the area they cover.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = {
+        DrawBudgetTest.DrawingImageView.class,
+        DrawBudgetTest.ColorAlphaPaint.class,
+        ManualChoreographer.class})
+public class DrawBudgetTest {
+
+    private static final int IMAGE = android.R.drawable.ic_media_play;
+
+    private InvalidationLayout mLayout;
+    private SwipeHarness mHarness;
+    private final CountingCanvas mCanvas = new CountingCanvas();
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        mLayout = new InvalidationLayout(SwipeHarness.newActivity());
+        mHarness = new SwipeHarness(mLayout);
+        mHarness.target.setBackgroundColor(Color.WHITE);
+    }
+
+    @Test
+    public void viewIndicatorsMeetBudget() {
+        ((CircleImageView) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mLeftImage")).setImage(IMAGE);
+        ((CircleImageView) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mRightImage")).setImage(IMAGE);
+        assertBudget();
+    }
+
+    @Test
+    public void inlineIndicatorsMeetBudget() {
+        SwipeHarness.writeField(mHarness.layout, SwipeActionsLayout.class, "mLeftImageRes", IMAGE);
+        SwipeHarness.writeField(mHarness.layout, SwipeActionsLayout.class, "mRightImageRes", IMAGE);
+        mHarness.layout.setInlineIndicators(true);
+        frame();
+        assertBudget();
+    }
+
+    @Test
+    public void inlineIndicatorsInvalidateTheirArea() {
+        mHarness.layout.setInlineIndicators(true);
+        frame();
+        mLayout.clear();
+
+        drag(100, 900);
+        mHarness.up(900);
+        frames(60);
+
+        assertEquals("Full invalidations", 0, mLayout.fullInvalidations);
+        assertTrue("No area was invalidated", mLayout.areaInvalidations > 0);
+        assertTrue("Invalidated " + mLayout.maxDirtyWidth + "px wide", mLayout.maxDirtyWidth < SwipeHarness.WIDTH / 4);
+    }
+
+    private void assertBudget() {
+        draw();
+        assertOps("idle", 0, 0);
+
+        drag(100, 900);
+        draw();
+        assertOps("dragging", 2, 1);
+
+        mHarness.up(900);
+        frame();
+        draw();
+        assertOps("settling", 2, 1);
+
+        frames(60);
+        draw();
+        assertOps("settled", 0, 0);
+
+        // The other direction, released before it triggers
+        drag(900, 850);
+        draw();
+        assertOps("dragging back", 2, 1);
+
+        mHarness.up(850);
+        frame();
+        draw();
+        assertOps("returning", 2, 1);
+
+        frames(60);
+        draw();
+        assertOps("reset", 0, 0);
+    }
+
+    private void drag(float from, float to) {
+        mHarness.down(from);
+        for (int i = 1; i <= 10; i++) {
+            frame();
+            mHarness.move(from + (to - from) * i / 10);
+        }
+        frame();
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+
+    private void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+
+    private void draw() {
+        mCanvas.clear();
+        // The Robolectric view shadow only draws backgrounds
+        Shadow.directlyOn(mHarness.layout, View.class, "draw", ClassParameter.from(Canvas.class, mCanvas));
+    }
+
+    /**
+     * @param indicatorOps operations of the indicators, on top of the target's background
+     * @param clipOuts     opaque indicators the target was clipped against
+     */
+    private void assertOps(String phase, int indicatorOps, int clipOuts) {
+        assertEquals(phase + " draws", 1 + indicatorOps, mCanvas.draws);
+        assertEquals(phase + " clip-outs", clipOuts, mCanvas.clipOuts);
+        assertEquals(phase + " layers", 0, mCanvas.layers);
+    }
+
+    static final class InvalidationLayout extends SwipeActionsLayout {
+
+        int fullInvalidations;
+        int areaInvalidations;
+        int maxDirtyWidth;
+
+        InvalidationLayout(Context context) {
+            super(context);
+        }
+
+        void clear() {
+            fullInvalidations = 0;
+            areaInvalidations = 0;
+            maxDirtyWidth = 0;
+        }
+
+        @Override
+        public void invalidate() {
+            fullInvalidations++;
+            super.invalidate();
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            areaInvalidations++;
+            maxDirtyWidth = Math.max(maxDirtyWidth, r - l);
+            super.invalidate(l, t, r, b);
+        }
+    }
+
+    /**
+     * Draws indicator views for real, where the view shadow would only draw the background.
+     */
+    @Implements(ImageView.class)
+    public static class DrawingImageView extends ShadowView {
+
+        @RealObject
+        private ImageView mRealView;
+
+        @Override
+        @Implementation
+        public void draw(Canvas canvas) {
+            Shadow.directlyOn(mRealView, View.class, "draw", ClassParameter.from(Canvas.class, canvas));
+        }
+    }
+
+    /**
+     * Keeps the alpha of the color, which the Robolectric paint stores apart, so that shape
+     * drawables draw at all.
+     */
+    @Implements(Paint.class)
+    public static class ColorAlphaPaint extends ShadowPaint {
+
+        @Override
+        @Implementation
+        public void setColor(int color) {
+            super.setColor(color);
+            setAlpha(Color.alpha(color));
+        }
+    }
+
+    /**
+     * Counts operations instead of drawing them.
+     */
+    static final class CountingCanvas extends Canvas {
+
+        int draws;
+        int clipOuts;
+        int layers;
+
+        void clear() {
+            draws = 0;
+            clipOuts = 0;
+            layers = 0;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawRect(Rect r, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawOval(float left, float top, float right, float bottom, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public void drawColor(int color) {
+            draws++;
+        }
+
+        @Override
+        public void drawPaint(Paint paint) {
+            draws++;
+        }
+
+        @Override
+        public boolean clipRect(Rect rect, Region.Op op) {
+            if (op == Region.Op.DIFFERENCE) {
+                clipOuts++;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(RectF rect, Region.Op op) {
+            if (op == Region.Op.DIFFERENCE) {
+                clipOuts++;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(float left, float top, float right, float bottom, Region.Op op) {
+            if (op == Region.Op.DIFFERENCE) {
+                clipOuts++;
+            }
+            return true;
+        }
+
+        @Override
+        public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+            layers++;
+            return save();
+        }
+
+        @Override
+        public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+            layers++;
+            return save();
+        }
+
+        @Override
+        public int saveLayerAlpha(RectF bounds, int alpha, int saveFlags) {
+            layers++;
+            return save();
+        }
+
+        @Override
+        public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha, int saveFlags) {
+            layers++;
+            return save();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.raistlin.swipeactions;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records single pointer swipes with the gesture trace of a layout, then replays the trace
+ * both through {@link SwipeGestureReplayer} and through the touch dispatch of a fresh layout,
+ * which must arm, disarm and trigger the same actions as the layout it was recorded on.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = ManualChoreographer.class)
+public class GestureTraceReplayTest {
+
+    private SwipeHarness mHarness;
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+    }
+
+    @Test
+    public void layoutMakesSameDecisionsAsReplayer() {
+        final SwipeHarness recording = attach();
+        final List<String> recorded = listen(recording.layout);
+        recording.layout.setGestureTraceCapacity(4096);
+        // Past the trigger, short of it, back below it, flung, cancelled when armed, leftward
+        swipe(100, 80, 10, MotionEvent.ACTION_UP);
+        swipe(100, 10, 3, MotionEvent.ACTION_UP);
+        swipe(100, 80, 10, MotionEvent.ACTION_MOVE);
+        swipe(900, -80, 10, MotionEvent.ACTION_UP);
+        swipe(100, 25, 4, MotionEvent.ACTION_UP);
+        swipe(100, 80, 10, MotionEvent.ACTION_CANCEL);
+        swipe(900, -80, 10, MotionEvent.ACTION_UP);
+        final byte[] trace = recording.layout.getGestureTrace();
+
+        final List<String> replayed = new ArrayList<>();
+        SwipeGestureReplayer.replay(trace, configuredLike(recording.layout), new SwipeGestureReplayer.Listener() {
+            @Override
+            public void onDragStarted(long eventTime, SwipeDirection direction) {
+            }
+
+            @Override
+            public void onArmedChanged(long eventTime, SwipeDirection direction, boolean armed) {
+                replayed.add((armed ? "armed " : "disarmed ") + direction);
+            }
+
+            @Override
+            public void onReleased(long eventTime, SwipeDirection direction, boolean triggered) {
+                if (triggered) {
+                    replayed.add("triggered " + direction);
+                }
+            }
+        });
+        assertTrue("Nothing was triggered", replayed.contains("triggered " + SwipeDirection.LEFT));
+        assertTrue("Nothing was triggered", replayed.contains("triggered " + SwipeDirection.RIGHT));
+        assertEquals("Recording layout", replayed, recorded);
+
+        final SwipeHarness replaying = attach();
+        final List<String> dispatched = listen(replaying.layout);
+        dispatch(trace);
+        assertEquals("Replaying layout", replayed, dispatched);
+    }
+
+    /**
+     * Drags from {@code from} in {@code moves} steps of {@code step} pixels, one per frame, and
+     * ends with {@code end}, or drags back to where it started first when that is a move.
+     */
+    private void swipe(float from, float step, int moves, int end) {
+        mHarness.down(from);
+        float x = from;
+        for (int i = 0; i < moves; i++) {
+            frame();
+            x += step;
+            mHarness.move(x);
+        }
+        if (end == MotionEvent.ACTION_MOVE) {
+            for (int i = 0; i < moves; i++) {
+                frame();
+                x -= step;
+                mHarness.move(x);
+            }
+            end = MotionEvent.ACTION_UP;
+        }
+        frame();
+        mHarness.send(end, x);
+        // Settled and delivered before the next swipe
+        frames(120);
+    }
+
+    /**
+     * Sends the samples of the trace to the layout on their own timeline, shifted to start
+     * with the next frame.
+     */
+    private void dispatch(byte[] trace) {
+        final List<long[]> times = new ArrayList<>();
+        final List<float[]> samples = new ArrayList<>();
+        SwipeGestureTrace.replay(trace, new SwipeGestureTrace.Receiver() {
+            @Override
+            public void onTouchEvent(int action, long eventTime, int pointerId, float x, float y, float velocity) {
+                assertTrue("Not a single pointer trace", pointerId == 0 || action == MotionEvent.ACTION_CANCEL);
+                times.add(new long[]{action, eventTime});
+                samples.add(new float[]{x, y});
+            }
+        });
+        frame();
+        final long offset = SystemClock.uptimeMillis() - times.get(0)[1];
+        long downTime = 0;
+        for (int i = 0; i < times.size(); i++) {
+            final int action = (int) times.get(i)[0];
+            final long eventTime = times.get(i)[1] + offset;
+            while (SystemClock.uptimeMillis() < eventTime) {
+                frame();
+            }
+            if (action == MotionEvent.ACTION_DOWN) {
+                downTime = eventTime;
+            }
+            final MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, samples.get(i)[0], samples.get(i)[1], 0);
+            mHarness.layout.dispatchTouchEvent(event);
+            event.recycle();
+        }
+        frames(120);
+    }
+
+    /**
+     * @return a state machine with the touch slop, trigger distance, physics and fling
+     * velocity of the layout
+     */
+    private static SwipeGestureStateMachine configuredLike(SwipeActionsLayout layout) {
+        final float triggerDistance = (Float) SwipeHarness.readField(layout, SwipeActionsLayout.class, "mTotalDragDistance");
+        final DragPhysics physics = (DragPhysics) SwipeHarness.readField(layout, SwipeActionsLayout.class, "mDragPhysics");
+        final SwipeGestureStateMachine layoutGesture = (SwipeGestureStateMachine) SwipeHarness.readField(layout, SwipeActionsLayout.class, "mGesture");
+        final SwipeGestureStateMachine gesture = new SwipeGestureStateMachine(
+                ViewConfiguration.get(layout.getContext()).getScaledTouchSlop(), triggerDistance, physics);
+        gesture.setFlingVelocity(layoutGesture.getFlingVelocity());
+        return gesture;
+    }
+
+    private static List<String> listen(SwipeActionsLayout layout) {
+        final List<String> decisions = new ArrayList<>();
+        layout.setActionsListener(new SwipeActionsLayout.ArmedActionsListener() {
+            @Override
+            public void onActionArmed(SwipeDirection direction) {
+                decisions.add("armed " + direction);
+            }
+
+            @Override
+            public void onActionDisarmed(SwipeDirection direction) {
+                decisions.add("disarmed " + direction);
+            }
+
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                decisions.add("triggered " + direction);
+            }
+        });
+        return decisions;
+    }
+
+    private SwipeHarness attach() {
+        mHarness = new SwipeHarness(new SwipeActionsLayout(SwipeHarness.newActivity()));
+        frame();
+        return mHarness;
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+
+    private void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the measure and layout passes a layout goes through during complete swipes. The
+ * drag and settle only change translation, alpha and scale, so there must be none.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class LayoutPassTest {
+
+    private CountingLayout mLayout;
+    private SwipeHarness mHarness;
+    private int mActions;
+
+    @Before
+    public void setUp() {
+        mLayout = new CountingLayout(SwipeHarness.newActivity());
+        mHarness = new SwipeHarness(mLayout);
+        mLayout.setActionsListener(new SwipeActionsLayout.ActionsListener() {
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                mActions++;
+            }
+        });
+        assertTrue("Layout was not laid out when attached", mLayout.layouts > 0);
+        mLayout.measures = 0;
+        mLayout.layouts = 0;
+    }
+
+    @Test
+    public void triggeringSwipeDoesNotLayOut() {
+        swipe(100, 900);
+        assertEquals(1, mActions);
+        assertNoPasses();
+    }
+
+    @Test
+    public void swipeThatResetsDoesNotLayOut() {
+        swipe(100, 130);
+        assertEquals(0, mActions);
+        assertNoPasses();
+    }
+
+    @Test
+    public void swipesBothWaysDoNotLayOut() {
+        swipe(100, 900);
+        swipe(900, 100);
+        // Caught by a new touch while still returning
+        mHarness.drag(100, 130, 10);
+        mHarness.up(130);
+        mHarness.frames(2);
+        swipe(130, 900);
+        assertEquals(3, mActions);
+        assertNoPasses();
+    }
+
+    private void swipe(float from, float to) {
+        mHarness.drag(from, to, 20);
+        mHarness.frame();
+        mHarness.up(to);
+        mHarness.frames(60);
+    }
+
+    private void assertNoPasses() {
+        assertEquals("Measure passes", 0, mLayout.measures);
+        assertEquals("Layout passes", 0, mLayout.layouts);
+    }
+
+    static class CountingLayout extends SwipeActionsLayout {
+
+        int measures;
+        int layouts;
+
+        CountingLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowPowerManager;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the time from releasing a triggering swipe until the action is delivered, on the
+ * frame clock, with and without each of the conditions that turn on reduced motion. A
+ * cancelled swipe is never delivered, an action requested while a touch holds a returning
+ * indicator always is, and so is one whose layout is detached before it settled.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = {
+        ReleaseLatencyTest.CountingPowerManager.class,
+        ManualChoreographer.class})
+public class ReleaseLatencyTest {
+
+    // The spring settles within a second
+    private static final long MAX_ANIMATED_LATENCY = 1000;
+
+    private SwipeHarness mHarness;
+    private long mActionTime;
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        CountingPowerManager.sQueries = 0;
+    }
+
+    @Test
+    public void animatedReleaseWaitsForSettle() {
+        attach();
+        final long latency = releaseToCallback();
+        assertTrue("Dispatched after " + latency + "ms", latency > 0 && latency <= MAX_ANIMATED_LATENCY);
+    }
+
+    @Test
+    public void reducedMotionDispatchesOnRelease() {
+        attach();
+        mHarness.layout.setReducedMotion(true);
+        assertDispatchedOnRelease();
+    }
+
+    @Test
+    public void zeroAnimatorScaleDispatchesOnRelease() {
+        Settings.Global.putFloat(RuntimeEnvironment.application.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 0f);
+        attach();
+        assertDispatchedOnRelease();
+    }
+
+    @Test
+    public void batterySaverDispatchesOnRelease() {
+        attach();
+        setPowerSaveMode(true);
+        assertDispatchedOnRelease();
+
+        setPowerSaveMode(false);
+        assertTrue(releaseToCallback() > 0);
+    }
+
+    @Test
+    public void gesturesDoNotQuerySystem() {
+        attach();
+        final int queries = CountingPowerManager.sQueries;
+        assertEquals("Battery saver read once when attached", 1, queries);
+
+        releaseToCallback();
+        releaseToCallback();
+        mHarness.layout.performAction(SwipeDirection.LEFT, true);
+        frames(120);
+        assertEquals("Battery saver queries during gestures", queries, CountingPowerManager.sQueries);
+
+        setPowerSaveMode(true);
+        assertEquals("Battery saver queries on its broadcast", queries + 1, CountingPowerManager.sQueries);
+    }
+
+    @Test
+    public void cancelledSwipeNeverDispatches() {
+        attach();
+        assertCancelled();
+        mHarness.layout.setReducedMotion(true);
+        assertCancelled();
+
+        // The gesture state was reset, so the next swipe triggers as usual
+        mHarness.layout.setReducedMotion(false);
+        assertTrue(releaseToCallback() > 0);
+    }
+
+    @Test
+    public void actionOnCaughtIndicatorIsDelivered() {
+        attach();
+        // A short swipe, its indicator returns on release
+        mHarness.down(100);
+        for (int i = 1; i <= 3; i++) {
+            frame();
+            mHarness.move(100 + 10 * i);
+        }
+        frame();
+        mHarness.up(130);
+        frames(2);
+        mHarness.down(500);
+        final Object caught = SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mCaughtImage");
+        assertTrue("Indicator was not caught", caught != null);
+        final SwipeDirection direction =
+                caught == SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mLeftImage")
+                        ? SwipeDirection.LEFT : SwipeDirection.RIGHT;
+
+        mActionTime = -1;
+        mHarness.layout.performAction(direction, true);
+        frame();
+        // Letting go of the caught indicator must not send it back home instead
+        mHarness.up(500);
+        frames(120);
+        assertTrue("Action was not delivered", mActionTime >= 0);
+        final SwipeIndicator indicator = (SwipeIndicator) caught;
+        assertEquals("Indicator offset", indicator.getOriginalOffset(), indicator.getCurrentTargetOffset());
+    }
+
+    @Test
+    public void actionQueuedDuringSwipeIsDeliveredWhenIdle() {
+        attach();
+        // Dragged just past the touch slop, so the indicator has not left its rest
+        mHarness.down(100);
+        frame();
+        mHarness.move(140);
+        frame();
+        mActionTime = -1;
+        mHarness.layout.performAction(SwipeDirection.LEFT, false);
+        assertEquals("Delivered during the swipe", -1, mActionTime);
+
+        mHarness.cancel(140);
+        frame();
+        assertTrue("Action was not delivered", mActionTime >= 0);
+    }
+
+    @Test
+    public void detachMidSettleDelivers() {
+        attach();
+        dragPastTrigger();
+        mActionTime = -1;
+        mHarness.up(900);
+        frames(2);
+        final boolean settling = ((SwipeAnimation) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mPositionAnimation")).isRunning();
+        assertTrue("Not settling", settling);
+
+        ((ViewGroup) mHarness.layout.getParent()).removeView(mHarness.layout);
+        assertTrue("Action was not delivered", mActionTime >= 0);
+        for (String name : new String[]{"mLeftImage", "mRightImage"}) {
+            final SwipeIndicator indicator = (SwipeIndicator) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, name);
+            assertEquals(name + " offset", indicator.getOriginalOffset(), indicator.getCurrentTargetOffset());
+            assertEquals(name + " visibility", View.INVISIBLE, indicator.getVisibility());
+        }
+    }
+
+    private void assertCancelled() {
+        dragPastTrigger();
+        mActionTime = -1;
+        mHarness.cancel(900);
+        frames(120);
+        assertEquals("Action delivered", -1, mActionTime);
+        assertEquals("Armed direction", SwipeDirection.NONE,
+                SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mArmedDirection"));
+        for (String name : new String[]{"mLeftImage", "mRightImage"}) {
+            final SwipeIndicator indicator = (SwipeIndicator) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, name);
+            assertEquals(name + " offset", indicator.getOriginalOffset(), indicator.getCurrentTargetOffset());
+        }
+    }
+
+    private void attach() {
+        mHarness = new SwipeHarness();
+        // Attached by the first traversal
+        frame();
+        mHarness.layout.setActionsListener(new SwipeActionsLayout.ActionsListener() {
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                mActionTime = SystemClock.uptimeMillis();
+            }
+        });
+    }
+
+    private void setPowerSaveMode(boolean powerSaveMode) {
+        final Context context = RuntimeEnvironment.application;
+        ((ShadowPowerManager) Shadow.extract(context.getSystemService(Context.POWER_SERVICE))).setIsPowerSaveMode(powerSaveMode);
+        context.sendBroadcast(new Intent(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+    }
+
+    private void assertDispatchedOnRelease() {
+        assertEquals("Release to callback", 0, releaseToCallback());
+        final View indicator = (View) SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mRightImage");
+        assertEquals("Indicator visibility", View.INVISIBLE, indicator.getVisibility());
+        assertEquals("Frames scheduled", 0, ManualChoreographer.pendingCallbacks(ManualChoreographer.CALLBACK_ANIMATION));
+    }
+
+    /**
+     * @return milliseconds from the release of a triggering swipe until its action was delivered
+     */
+    private long releaseToCallback() {
+        dragPastTrigger();
+        mActionTime = -1;
+        final long release = SystemClock.uptimeMillis();
+        mHarness.up(900);
+        for (int i = 0; mActionTime < 0 && i < 120; i++) {
+            frame();
+        }
+        assertTrue("Action was not delivered", mActionTime >= 0);
+        final long latency = mActionTime - release;
+        // Back to rest before the next gesture
+        frames(60);
+        return latency;
+    }
+
+    private void dragPastTrigger() {
+        mHarness.down(100);
+        for (int i = 1; i <= 10; i++) {
+            frame();
+            mHarness.move(100 + 80 * i);
+        }
+        frame();
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+
+    private void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+
+    /**
+     * Counts battery saver queries, each of which is a call into the system service.
+     */
+    @Implements(PowerManager.class)
+    public static class CountingPowerManager extends ShadowPowerManager {
+
+        static int sQueries;
+
+        @Override
+        @Implementation
+        public boolean isPowerSaveMode() {
+            sQueries++;
+            return super.isPowerSaveMode();
+        }
+    }
+}
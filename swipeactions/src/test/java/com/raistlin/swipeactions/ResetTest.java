@@ -0,0 +1,62 @@
+package com.raistlin.swipeactions;
+
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Resets a layout in the middle of a gesture, as recycling a row does, and checks that the
+ * next swipe is not held up by what the abandoned one left behind.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = ManualChoreographer.class)
+public class ResetTest {
+
+    private SwipeHarness mHarness;
+    private boolean mDelivered;
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        mHarness = new SwipeHarness(new SwipeActionsLayout(SwipeHarness.newActivity()));
+        frame();
+        mHarness.layout.setActionsListener(new SwipeActionsLayout.ActionsListener() {
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                mDelivered = true;
+            }
+        });
+    }
+
+    @Test
+    public void resetAbandonsNestedScroll() {
+        final SwipeActionsLayout layout = mHarness.layout;
+        layout.onNestedScrollAccepted(mHarness.target, mHarness.target, ViewCompat.SCROLL_AXIS_HORIZONTAL);
+        layout.onNestedScroll(mHarness.target, 0, 0, -40, 0);
+        layout.reset();
+
+        // The nested scroll never stops, so only the reset lets touches swipe again
+        mHarness.drag(100, 900, 10);
+        frame();
+        mHarness.up(900);
+        for (int i = 0; i < 120; i++) {
+            frame();
+        }
+        assertTrue("Action was not delivered", mDelivered);
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+}
@@ -0,0 +1,126 @@
+package com.raistlin.swipeactions;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.Scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+
+/**
+ * Hosts a {@link SwipeActionsLayout} in an activity and feeds it touch streams on the
+ * Robolectric clock, one frame at a time.
+ */
+final class SwipeHarness {
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 200;
+    static final long FRAME_MILLIS = 16;
+
+    final Activity activity;
+    final SwipeActionsLayout layout;
+    final View target;
+    final Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+
+    private long mDownTime;
+
+    SwipeHarness() {
+        this(new SwipeActionsLayout(newActivity()));
+    }
+
+    /**
+     * @param layout layout created with a context from {@link #newActivity()}
+     */
+    SwipeHarness(SwipeActionsLayout layout) {
+        this.layout = layout;
+        activity = (Activity) layout.getContext();
+        target = new View(activity);
+        layout.addView(target);
+        activity.setContentView(layout, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        scheduler.advanceToLastPostedRunnable();
+    }
+
+    void down(float x) {
+        mDownTime = SystemClock.uptimeMillis();
+        send(MotionEvent.ACTION_DOWN, x);
+    }
+
+    void move(float x) {
+        send(MotionEvent.ACTION_MOVE, x);
+    }
+
+    void up(float x) {
+        send(MotionEvent.ACTION_UP, x);
+    }
+
+    void cancel(float x) {
+        send(MotionEvent.ACTION_CANCEL, x);
+    }
+
+    void send(int action, float x) {
+        final MotionEvent event = MotionEvent.obtain(mDownTime, SystemClock.uptimeMillis(), action, x, HEIGHT / 2, 0);
+        layout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * Drags from {@code from} to {@code to} in {@code frames} evenly spaced moves, one per frame.
+     */
+    void drag(float from, float to, int frames) {
+        down(from);
+        for (int i = 1; i <= frames; i++) {
+            frame();
+            move(from + (to - from) * i / frames);
+        }
+    }
+
+    void frame() {
+        scheduler.advanceBy(FRAME_MILLIS);
+    }
+
+    void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+
+    static Activity newActivity() {
+        // The frame clock is kept per thread, drop the one a previous test left behind
+        ((ThreadLocal<?>) readField(null, AnimationHandler.class, "sInstance")).remove();
+        // So are the system settings per process, along with the receiver of the previous application
+        writeField(null, SystemMotionSettings.class, "sPowerSaveReceiver", null);
+        writeField(null, SystemMotionSettings.class, "sAnimatorScale", 1f);
+        writeField(null, SystemMotionSettings.class, "sPowerSaveMode", false);
+        return Robolectric.setupActivity(Activity.class);
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static Object readField(Object owner, Class<?> type, String name) {
+        try {
+            final Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(owner);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static void writeField(Object owner, Class<?> type, String name, Object value) {
+        try {
+            final Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(owner, value);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
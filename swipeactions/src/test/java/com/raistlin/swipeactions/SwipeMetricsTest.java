@@ -0,0 +1,122 @@
+package com.raistlin.swipeactions;
+
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Constructor;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the summaries reported to a {@link SwipeMetricsListener}: the drag start latency of
+ * swipes started by a nested scrolling child, and frame reports dropped by FrameMetrics. The
+ * window renders in software here, which counts frames from Choreographer.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = ManualChoreographer.class)
+public class SwipeMetricsTest {
+
+    private SwipeHarness mHarness;
+    private View mScrollingChild;
+    private SwipeMetrics mMetrics;
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        final SwipeActionsLayout layout = new SwipeActionsLayout(SwipeHarness.newActivity());
+        // Taken as the target, the swipe then comes from its nested scrolling
+        mScrollingChild = new View(layout.getContext()) {
+            @Override
+            public boolean canScrollHorizontally(int direction) {
+                return true;
+            }
+        };
+        layout.addView(mScrollingChild);
+        mHarness = new SwipeHarness(layout);
+        frame();
+        layout.setSwipeMetricsListener(new SwipeMetricsListener() {
+            @Override
+            public void onSwipeMetrics(SwipeMetrics metrics) {
+                mMetrics = metrics;
+            }
+        });
+    }
+
+    @Test
+    public void nestedDragMeasuresFromItsDown() {
+        // An earlier gesture, so a stale down time would show
+        nestedSwipe();
+        frames(10);
+
+        final long down = SystemClock.uptimeMillis();
+        mHarness.down(500);
+        frames(5);
+        final long dragStart = SystemClock.uptimeMillis();
+        nestedScroll();
+        endNestedSwipe();
+        assertEquals("Drag start latency", dragStart - down, mMetrics.getDragStartLatency());
+    }
+
+    @Test
+    public void droppedReportsAreNotSlowFrames() throws Exception {
+        mHarness.down(500);
+        nestedScroll();
+        // Robolectric renders in software, so count this drag with FrameMetrics by hand
+        final Object recorder = SwipeHarness.readField(mHarness.layout, SwipeActionsLayout.class, "mMetricsRecorder");
+        final Object counter = SwipeHarness.readField(recorder, SwipeMetricsRecorder.class, "mFrameMetricsCounter");
+        SwipeHarness.writeField(recorder, SwipeMetricsRecorder.class, "mFrameCounter", counter);
+        final Constructor<FrameMetrics> constructor = FrameMetrics.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        // A fast frame reported after three were dropped
+        ((Window.OnFrameMetricsAvailableListener) counter).onFrameMetricsAvailable(mHarness.activity.getWindow(), constructor.newInstance(), 3);
+        endNestedSwipe();
+        assertEquals("Frames", 1, mMetrics.getFrameCount());
+        assertEquals("Slow frames", 0, mMetrics.getSlowFrameCount());
+        assertEquals("Dropped reports", 3, mMetrics.getDroppedFrameReportCount());
+    }
+
+    private void nestedSwipe() {
+        mHarness.down(500);
+        nestedScroll();
+        endNestedSwipe();
+    }
+
+    private void nestedScroll() {
+        final SwipeActionsLayout layout = mHarness.layout;
+        assertTrue(layout.onStartNestedScroll(mScrollingChild, mScrollingChild, ViewCompat.SCROLL_AXIS_HORIZONTAL));
+        layout.onNestedScrollAccepted(mScrollingChild, mScrollingChild, ViewCompat.SCROLL_AXIS_HORIZONTAL);
+        layout.onNestedScroll(mScrollingChild, 0, 0, -40, 0);
+    }
+
+    private void endNestedSwipe() {
+        mMetrics = null;
+        mHarness.layout.onStopNestedScroll(mScrollingChild);
+        mHarness.up(500);
+        frames(120);
+        assertTrue("Metrics were not reported", mMetrics != null);
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+
+    private void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.raistlin.swipeactions;
+
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Follows a swipe with a {@link SwipeProgressListener}: the fraction reported while the
+ * indicator settles carries on from the one reported while it was dragged.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = ManualChoreographer.class)
+public class SwipeProgressTest {
+
+    private SwipeHarness mHarness;
+    private final List<float[]> mProgress = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        mHarness = new SwipeHarness(new SwipeActionsLayout(SwipeHarness.newActivity()));
+        frame();
+        mHarness.layout.setSwipeProgressListener(new SwipeProgressListener() {
+            @Override
+            public void onSwipeProgress(int direction, float fraction, int offset, boolean armed) {
+                mProgress.add(new float[]{fraction, offset});
+            }
+        });
+    }
+
+    @Test
+    public void triggeredSwipeIsContinuousOnRelease() {
+        assertContinuousOnRelease(80);
+    }
+
+    @Test
+    public void shortSwipeIsContinuousOnRelease() {
+        assertContinuousOnRelease(10);
+    }
+
+    /**
+     * Drags in ten moves of {@code step} pixels, releases and compares the last fraction
+     * of the drag with the first one of the settle.
+     */
+    private void assertContinuousOnRelease(float step) {
+        float x = 100;
+        mHarness.down(x);
+        for (int i = 0; i < 10; i++) {
+            frame();
+            x += step;
+            mHarness.move(x);
+        }
+        frame();
+        final int dragged = mProgress.size();
+        assertTrue("Drag reported no progress", dragged > 0);
+        final float[] last = mProgress.get(dragged - 1);
+
+        mHarness.up(x);
+        frame();
+        assertTrue("Settle reported no progress", mProgress.size() > dragged);
+        final float[] first = mProgress.get(dragged);
+        // One frame of settling moves the indicator a little, the fraction follows the offset
+        final float perPixel = last[0] / last[1];
+        assertEquals("Fraction per pixel", perPixel, first[0] / first[1], 1e-4f);
+        assertEquals("Fraction after release", last[0], first[0], perPixel * Math.abs(first[1] - last[1]) + 1e-4f);
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+}
@@ -0,0 +1,328 @@
+package com.raistlin.swipeactions;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewParent;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowMotionEvent;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import static com.raistlin.swipeactions.AllocationShadows.ManualChoreographer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds synthetic touch streams through a real layout, one event per frame, and reports
+ * the cost of intercept, touch handling, the indicator offset update and layout per event:
+ * nanoseconds and bytes allocated, plus the number of layout passes and invalidations.
+ * The target is clickable, so moves go through {@code onInterceptTouchEvent} until the
+ * layout takes over the gesture. Times on the JVM only compare runs with each other, and
+ * the bytes are those Robolectric allocates to copy events and post tap callbacks, which
+ * the platform takes from its pools; the library itself allocates nothing per event.
+ * <p>
+ * Not part of the default test run: {@code ./gradlew test -Pbenchmark} runs it and writes the
+ * results to {@code build/reports/benchmark/TouchPipelineBenchmark.txt}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE, shadows = {
+        AllocationShadows.SingletonAccessibilityManager.class,
+        AllocationShadows.DirectInvalidateImageView.class,
+        AllocationShadows.DirectInvalidateShapeDrawable.class,
+        AllocationShadows.PrimitiveVelocityTracker.class,
+        ManualChoreographer.class})
+public class TouchPipelineBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 50;
+    private static final int Y = SwipeHarness.HEIGHT / 2;
+    private static final String REPORT_NAME = "TouchPipelineBenchmark.txt";
+
+    private CountingLayout mLayout;
+    private SwipeHarness mHarness;
+    private final ArrayList<MotionEvent> mEvents = new ArrayList<>();
+    private long mMeasureOverhead;
+    private int mActions;
+
+    @BeforeClass
+    public static void clearReport() {
+        final File report = reportFile();
+        if (report.exists() && !report.delete()) {
+            throw new AssertionError("Cannot replace " + report);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ManualChoreographer.clear();
+        mLayout = new CountingLayout(SwipeHarness.newActivity());
+        mHarness = new SwipeHarness(mLayout);
+        mHarness.target.setClickable(true);
+        mLayout.setActionsListener(new SwipeActionsLayout.ActionsListener() {
+            @Override
+            public void onActionSelected(SwipeDirection direction) {
+                mActions++;
+            }
+        });
+        // Attached by the first traversal
+        frame();
+        final long start = SwipeHarness.allocatedBytes();
+        mMeasureOverhead = SwipeHarness.allocatedBytes() - start;
+    }
+
+    @Test
+    public void slowDrag() {
+        // 5px per frame, past the trigger point in about a second
+        final Result result = run("slow drag", new Stream() {
+            @Override
+            public void build(long time) {
+                add(time, MotionEvent.ACTION_DOWN, 0, 100);
+                for (int i = 1; i <= 60; i++) {
+                    add(time + i * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 0, 100 + 5 * i);
+                }
+                add(time + 61 * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_UP, 0, 400);
+            }
+        });
+        assertOutcome(result, true);
+    }
+
+    @Test
+    public void fling() {
+        // Released short of the trigger point, committed by its speed
+        final Result result = run("fling", new Stream() {
+            @Override
+            public void build(long time) {
+                add(time, MotionEvent.ACTION_DOWN, 0, 100);
+                for (int i = 1; i <= 4; i++) {
+                    add(time + i * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 0, 100 + 25 * i);
+                }
+                add(time + 5 * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_UP, 0, 200);
+            }
+        });
+        assertOutcome(result, true);
+    }
+
+    @Test
+    public void abortedSwipe() {
+        // Dragged out and back, then released where it started
+        final Result result = run("aborted swipe", new Stream() {
+            @Override
+            public void build(long time) {
+                add(time, MotionEvent.ACTION_DOWN, 0, 100);
+                for (int i = 1; i <= 20; i++) {
+                    add(time + i * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 0, 100 + 3 * Math.min(i, 20 - i));
+                }
+                add(time + 21 * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_UP, 0, 100);
+            }
+        });
+        assertOutcome(result, false);
+    }
+
+    @Test
+    public void multiPointer() {
+        // A second finger lands, the first one lifts and the second one finishes the swipe
+        final Result result = run("multi-pointer", new Stream() {
+            @Override
+            public void build(long time) {
+                add(time, MotionEvent.ACTION_DOWN, 0, 100);
+                int frame = 0;
+                for (int i = 1; i <= 10; i++) {
+                    add(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 0, 100 + 10 * i);
+                }
+                add2(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_POINTER_DOWN, 1, 200, 500);
+                for (int i = 1; i <= 10; i++) {
+                    add2(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 1, 200 + 10 * i, 500 + 10 * i);
+                }
+                add2(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_POINTER_UP, 0, 300, 600);
+                for (int i = 1; i <= 10; i++) {
+                    add(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_MOVE, 1, 600 + 10 * i);
+                }
+                add(time + ++frame * SwipeHarness.FRAME_MILLIS, MotionEvent.ACTION_UP, 1, 700);
+            }
+        });
+        assertOutcome(result, true);
+    }
+
+    private Result run(String name, Stream stream) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(stream);
+        }
+        final Result result = new Result();
+        mLayout.clear();
+        mActions = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            final Result iteration = iteration(stream);
+            result.events += iteration.events;
+            result.nanos += iteration.nanos;
+            result.bytes += iteration.bytes;
+        }
+        result.layouts = mLayout.measures + mLayout.layouts;
+        result.invalidations = mLayout.invalidations;
+        result.actions = mActions;
+        report(String.format(Locale.US, "%-14s %8.0f ns/event %6.1f B/event %4d layouts %5.1f invalidations/event",
+                name, (double) result.nanos / result.events, (double) result.bytes / result.events,
+                result.layouts, (double) result.invalidations / result.events));
+        assertTrue(name + " invalidated nothing", result.invalidations > 0);
+        return result;
+    }
+
+    /**
+     * Dispatches one stream, an event per frame, and lets the indicator settle.
+     */
+    private Result iteration(Stream stream) {
+        mEvents.clear();
+        // The first event is dispatched in the next frame
+        stream.build(SystemClock.uptimeMillis() + SwipeHarness.FRAME_MILLIS);
+        final Result result = new Result();
+        for (int i = 0; i < mEvents.size(); i++) {
+            final MotionEvent event = mEvents.get(i);
+            mHarness.frame();
+            final long frameTime = SystemClock.uptimeMillis();
+            final long bytes = SwipeHarness.allocatedBytes();
+            final long start = System.nanoTime();
+            mLayout.dispatchTouchEvent(event);
+            ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+            result.nanos += System.nanoTime() - start;
+            result.bytes += SwipeHarness.allocatedBytes() - bytes - mMeasureOverhead;
+            result.events++;
+            // A pending layout would run here
+            ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+            event.recycle();
+        }
+        for (int i = 0; i < 60; i++) {
+            frame();
+        }
+        return result;
+    }
+
+    private void frame() {
+        mHarness.frame();
+        final long frameTime = SystemClock.uptimeMillis();
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_ANIMATION, frameTime);
+        ManualChoreographer.runCallbacks(ManualChoreographer.CALLBACK_TRAVERSAL, frameTime);
+    }
+
+    private static File reportFile() {
+        return new File(System.getProperty("benchmark.reportDir", "build/reports/benchmark"), REPORT_NAME);
+    }
+
+    private static void report(String line) {
+        final File report = reportFile();
+        report.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(report, true)) {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertOutcome(Result result, boolean triggers) {
+        assertEquals("Actions", triggers ? ITERATIONS : 0, result.actions);
+        assertEquals("Layout passes", 0, result.layouts);
+    }
+
+    private abstract class Stream {
+
+        private long mDownTime;
+
+        abstract void build(long time);
+
+        void add(long time, int action, int pointerId, float x) {
+            if (action == MotionEvent.ACTION_DOWN) {
+                mDownTime = time;
+            }
+            final MotionEvent event = MotionEvent.obtain(mDownTime, time, action, x, Y, 0);
+            ((ShadowMotionEvent) Shadow.extract(event)).setPointerIds(pointerId, 1 - pointerId);
+            mEvents.add(event);
+        }
+
+        /**
+         * Adds an event with pointers 0 and 1 down, at {@code x0} and {@code x1}.
+         *
+         * @param index index of the pointer going down or up
+         */
+        void add2(long time, int action, int index, float x0, float x1) {
+            final MotionEvent event = MotionEvent.obtain(mDownTime, time,
+                    action == MotionEvent.ACTION_MOVE ? action : action | index << MotionEvent.ACTION_POINTER_INDEX_SHIFT, x0, Y, 0);
+            // The Robolectric event only supports a second pointer through its shadow
+            final ShadowMotionEvent shadow = (ShadowMotionEvent) Shadow.extract(event);
+            shadow.setPointer2(x1, Y);
+            shadow.setPointerIds(0, 1);
+            mEvents.add(event);
+        }
+    }
+
+    private static final class Result {
+        int events;
+        long nanos;
+        long bytes;
+        int layouts;
+        int invalidations;
+        int actions;
+    }
+
+    /**
+     * Counts layout passes and the invalidations of the layout and of its children.
+     */
+    static final class CountingLayout extends SwipeActionsLayout {
+
+        int measures;
+        int layouts;
+        int invalidations;
+
+        CountingLayout(Context context) {
+            super(context);
+        }
+
+        void clear() {
+            measures = 0;
+            layouts = 0;
+            invalidations = 0;
+        }
+
+        @Override
+        public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidations++;
+            super.invalidate();
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            invalidations++;
+            super.invalidate(l, t, r, b);
+        }
+
+        @Override
+        public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+            invalidations++;
+            return super.invalidateChildInParent(location, dirty);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Maps the finger movement of a swipe onto the indicator position. Implementations are
+ * called on every move event, so they should not allocate.
+ * <p>
+ * A custom implementation can be set with {@code SwipeActionsLayout.setDragPhysics(DragPhysics)}
+ * or with the {@code drag_physics} XML attribute, which takes a class name with a public
+ * no-argument constructor.
+ */
+public interface DragPhysics {
+
+    /**
+     * Called whenever the layout's distances change and before the first drag.
+     *
+     * @param triggerDistance overscroll at which the action is triggered, in px
+     * @param finalOffset     indicator travel at the trigger point, in px
+     */
+    void configure(float triggerDistance, float finalOffset);
+
+    /**
+     * @param dragDistance finger travel in the swipe direction, in px
+     * @return overscroll compared against the trigger distance
+     */
+    float getOverscroll(float dragDistance);
+
+    /**
+     * @param overscroll non-negative overscroll returned by {@link #getOverscroll(float)}
+     * @return indicator travel from its original offset, in px
+     */
+    float getIndicatorOffset(float overscroll);
+}
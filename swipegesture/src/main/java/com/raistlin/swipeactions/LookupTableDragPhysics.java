@@ -0,0 +1,61 @@
+package com.raistlin.swipeactions;
+
+/**
+ * {@link DragPhysics} that samples another curve once per {@link #configure(float, float)}
+ * call and evaluates it by linear interpolation, so a move event costs one multiply and
+ * one table lookup. The table covers overscrolls up to the trigger distance plus twice
+ * the final offset; larger overscrolls get the last sample.
+ */
+public class LookupTableDragPhysics implements DragPhysics {
+
+    private static final int DEFAULT_SAMPLE_COUNT = 64;
+
+    private final DragPhysics mSource;
+    private final float[] mSamples;
+    private float mSampleScale;
+
+    /**
+     * Samples the default {@link TensionDragPhysics} curve.
+     */
+    public LookupTableDragPhysics() {
+        this(new TensionDragPhysics(), DEFAULT_SAMPLE_COUNT);
+    }
+
+    public LookupTableDragPhysics(DragPhysics source, int sampleCount) {
+        if (sampleCount < 2) {
+            throw new IllegalArgumentException("At least two samples are required");
+        }
+        mSource = source;
+        mSamples = new float[sampleCount];
+    }
+
+    @Override
+    public void configure(float triggerDistance, float finalOffset) {
+        mSource.configure(triggerDistance, finalOffset);
+        final float range = triggerDistance + finalOffset * 2;
+        final int last = mSamples.length - 1;
+        for (int i = 0; i <= last; i++) {
+            mSamples[i] = mSource.getIndicatorOffset(range * i / last);
+        }
+        mSampleScale = range > 0 ? last / range : 0;
+    }
+
+    @Override
+    public float getOverscroll(float dragDistance) {
+        return mSource.getOverscroll(dragDistance);
+    }
+
+    @Override
+    public float getIndicatorOffset(float overscroll) {
+        final float position = overscroll * mSampleScale;
+        if (position <= 0) {
+            return mSamples[0];
+        }
+        final int index = (int) position;
+        if (index >= mSamples.length - 1) {
+            return mSamples[mSamples.length - 1];
+        }
+        final float fraction = position - index;
+        return mSamples[index] + (mSamples[index + 1] - mSamples[index]) * fraction;
+    }
+}
@@ -0,0 +1,78 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Feeds a recorded {@link SwipeGestureTrace} through a {@link SwipeGestureStateMachine} and
+ * reports the decisions it makes, so traces from the field can be reproduced on the JVM.
+ * The state machine should be configured like the device the trace was recorded on.
+ */
+public final class SwipeGestureReplayer implements SwipeGestureTrace.Receiver {
+
+    private final SwipeGestureStateMachine mGesture;
+    private final Listener mListener;
+    private boolean mArmed;
+
+    public SwipeGestureReplayer(SwipeGestureStateMachine gesture, Listener listener) {
+        mGesture = gesture;
+        mListener = listener;
+    }
+
+    public static void replay(byte[] trace, SwipeGestureStateMachine gesture, Listener listener) {
+        SwipeGestureTrace.replay(trace, new SwipeGestureReplayer(gesture, listener));
+    }
+
+    @Override
+    public void onTouchEvent(int action, long eventTime, int pointerId, float x, float y, float velocity) {
+        switch (mGesture.onTouchEvent(action, eventTime, pointerId, x, y)) {
+            case SwipeGestureStateMachine.RESULT_DRAG_STARTED:
+                mArmed = false;
+                mListener.onDragStarted(eventTime, mGesture.getDirection());
+                break;
+
+            case SwipeGestureStateMachine.RESULT_DRAGGED:
+                final boolean armed = mGesture.isArmed(mGesture.getDragDistance());
+                if (armed != mArmed) {
+                    mArmed = armed;
+                    mListener.onArmedChanged(eventTime, mGesture.getDirection(), armed);
+                }
+                break;
+
+            case SwipeGestureStateMachine.RESULT_RELEASED:
+                release(eventTime, mGesture.shouldTrigger(mGesture.getDragDistance(), velocity));
+                break;
+
+            case SwipeGestureStateMachine.RESULT_CANCELLED:
+                release(eventTime, false);
+                break;
+        }
+    }
+
+    private void release(long eventTime, boolean triggered) {
+        // Like the layout, a fling is armed before it commits and anything else is disarmed
+        if (triggered != mArmed) {
+            mListener.onArmedChanged(eventTime, mGesture.getDirection(), triggered);
+        }
+        mArmed = false;
+        mListener.onReleased(eventTime, mGesture.getDirection(), triggered);
+    }
+
+    /**
+     * Decisions made while replaying, stamped with the time of the sample that caused them.
+     */
+    public interface Listener {
+        void onDragStarted(long eventTime, SwipeDirection direction);
+
+        /**
+         * Called whenever releasing would start or stop committing the action, and on the
+         * release itself if that changes it, as reported by
+         * {@code SwipeActionsLayout.ArmedActionsListener}.
+         */
+        void onArmedChanged(long eventTime, SwipeDirection direction, boolean armed);
+
+        /**
+         * Called when the drag ends, whether released or cancelled.
+         *
+         * @param triggered whether the release commits the action, always false if cancelled
+         */
+        void onReleased(long eventTime, SwipeDirection direction, boolean triggered);
+    }
+}
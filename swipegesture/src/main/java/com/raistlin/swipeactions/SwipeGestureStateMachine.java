@@ -0,0 +1,221 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Platform independent part of the swipe gesture: touch slop, axis lock, direction
+ * selection, pointer switching and the release decision. It is fed primitive touch
+ * samples and allocates nothing, so it runs unchanged on a plain JVM.
+ */
+public final class SwipeGestureStateMachine {
+
+    // Same values as the masked MotionEvent actions, so they can be passed straight through
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    public static final int INVALID_POINTER = -1;
+
+    /**
+     * The event did not change the drag.
+     */
+    public static final int RESULT_NONE = 0;
+    /**
+     * A drag started in {@link #getDirection()}.
+     */
+    public static final int RESULT_DRAG_STARTED = 1;
+    /**
+     * The drag moved to a new {@link #getDragDistance()}.
+     */
+    public static final int RESULT_DRAGGED = 2;
+    /**
+     * The active pointer lifted and ended the drag; {@link #shouldTrigger(float, float)} tells
+     * whether it commits the action.
+     */
+    public static final int RESULT_RELEASED = 3;
+    /**
+     * The drag was cancelled; it never commits the action.
+     */
+    public static final int RESULT_CANCELLED = 4;
+
+    // A drag only starts if the movement is this many times more horizontal than vertical
+    private static final int AXIS_LOCK_RATIO = 3;
+
+    private final int mTouchSlop;
+    private final float mTriggerDistance;
+    private float mFlingVelocity;
+    private DragPhysics mDragPhysics;
+
+    // Bit mask of the ids of the pointers that are down
+    private int mPointers;
+    private int mActivePointerId = INVALID_POINTER;
+    private float mInitialDownX;
+    private float mInitialDownY;
+    private float mInitialMotionX;
+    private float mLastX;
+    private SwipeDirection mDirection = SwipeDirection.NONE;
+    private boolean mDragging;
+
+    /**
+     * @param touchSlop       distance in pixels a pointer moves before a drag starts
+     * @param triggerDistance overscroll in pixels past which a release triggers the action
+     * @param dragPhysics     configured curve turning drag distance into overscroll
+     */
+    public SwipeGestureStateMachine(int touchSlop, float triggerDistance, DragPhysics dragPhysics) {
+        mTouchSlop = touchSlop;
+        mTriggerDistance = triggerDistance;
+        mDragPhysics = dragPhysics;
+    }
+
+    public void setDragPhysics(DragPhysics dragPhysics) {
+        mDragPhysics = dragPhysics;
+    }
+
+    /**
+     * Set the release velocity, in pixels per second, that triggers the action even if the
+     * drag did not reach the trigger distance. Zero or less disables fling triggering.
+     */
+    public void setFlingVelocity(float flingVelocity) {
+        mFlingVelocity = flingVelocity;
+    }
+
+    public float getFlingVelocity() {
+        return mFlingVelocity;
+    }
+
+    /**
+     * Feeds one touch event. For pointer down and up actions the sample describes the pointer
+     * going down or up, for all other actions it describes the {@link #getActivePointerId()
+     * active pointer}.
+     *
+     * @return one of the {@code RESULT_} constants
+     */
+    public int onTouchEvent(int action, long eventTime, int pointerId, float x, float y) {
+        switch (action) {
+            case ACTION_DOWN:
+                mPointers = 1 << pointerId;
+                mActivePointerId = pointerId;
+                mInitialDownX = x;
+                mInitialDownY = y;
+                mLastX = x;
+                mDirection = SwipeDirection.NONE;
+                mDragging = false;
+                return RESULT_NONE;
+
+            case ACTION_POINTER_DOWN:
+                mPointers |= 1 << pointerId;
+                if (mDragging) {
+                    // The latest finger takes over the drag
+                    mActivePointerId = pointerId;
+                }
+                return RESULT_NONE;
+
+            case ACTION_POINTER_UP:
+                mPointers &= ~(1 << pointerId);
+                if (pointerId == mActivePointerId) {
+                    // This was our active pointer going up. Continue with one that is still down.
+                    mActivePointerId = mPointers != 0 ? Integer.numberOfTrailingZeros(mPointers) : INVALID_POINTER;
+                }
+                return RESULT_NONE;
+
+            case ACTION_MOVE:
+                if (mActivePointerId == INVALID_POINTER || pointerId != mActivePointerId) {
+                    return RESULT_NONE;
+                }
+                mLastX = x;
+                if (mDragging) {
+                    return RESULT_DRAGGED;
+                }
+                final float xDiff = x - mInitialDownX;
+                final float yDiff = y - mInitialDownY;
+                if (Math.abs(xDiff) > AXIS_LOCK_RATIO * Math.abs(yDiff)) {
+                    if (xDiff > mTouchSlop) {
+                        startDrag(SwipeDirection.LEFT, mInitialDownX + mTouchSlop);
+                        return RESULT_DRAG_STARTED;
+                    } else if (xDiff < -mTouchSlop) {
+                        startDrag(SwipeDirection.RIGHT, mInitialDownX - mTouchSlop);
+                        return RESULT_DRAG_STARTED;
+                    }
+                } else {
+                    // replace the initial point because movement was too vertical
+                    mInitialDownX = x;
+                    mInitialDownY = y;
+                }
+                return RESULT_NONE;
+
+            case ACTION_UP:
+                final boolean released = mDragging && pointerId == mActivePointerId;
+                if (released) {
+                    mLastX = x;
+                }
+                reset();
+                return released ? RESULT_RELEASED : RESULT_NONE;
+
+            case ACTION_CANCEL:
+                final boolean cancelled = mDragging;
+                reset();
+                return cancelled ? RESULT_CANCELLED : RESULT_NONE;
+        }
+        return RESULT_NONE;
+    }
+
+    private void reset() {
+        mDragging = false;
+        mPointers = 0;
+        mActivePointerId = INVALID_POINTER;
+    }
+
+    private void startDrag(SwipeDirection direction, float initialMotionX) {
+        mDirection = direction;
+        mInitialMotionX = initialMotionX;
+        mDragging = true;
+    }
+
+    public boolean isDragging() {
+        return mDragging;
+    }
+
+    /**
+     * @return direction of the current or last drag, {@link SwipeDirection#NONE} before a
+     * drag started
+     */
+    public SwipeDirection getDirection() {
+        return mDirection;
+    }
+
+    public int getActivePointerId() {
+        return mActivePointerId;
+    }
+
+    /**
+     * @return travel of the active pointer in the drag direction since the drag started
+     */
+    public float getDragDistance() {
+        return getDragDistance(mLastX);
+    }
+
+    /**
+     * @return travel in the drag direction of a pointer at the given position
+     */
+    public float getDragDistance(float x) {
+        return mDirection.getMultiplier() * (x - mInitialMotionX);
+    }
+
+    /**
+     * @return true if releasing at the given drag distance triggers the action
+     */
+    public boolean isArmed(float dragDistance) {
+        return mDragPhysics.getOverscroll(dragDistance) > mTriggerDistance;
+    }
+
+    /**
+     * @param velocity release velocity in pixels per second, positive in the drag direction
+     * @return true if a release at the given drag distance and velocity commits the action
+     */
+    public boolean shouldTrigger(float dragDistance, float velocity) {
+        final float overscroll = mDragPhysics.getOverscroll(dragDistance);
+        final boolean fling = mFlingVelocity > 0 && overscroll > 0 && velocity >= mFlingVelocity;
+        return overscroll > mTriggerDistance || fling;
+    }
+}
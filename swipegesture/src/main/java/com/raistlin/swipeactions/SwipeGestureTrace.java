@@ -0,0 +1,189 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Compact recording of the touch samples fed to a {@link SwipeGestureStateMachine}.
+ * Samples are stored in a preallocated ring buffer as varints, with times and coordinates
+ * relative to the previous sample; every gesture starts with an absolute down sample.
+ * When the buffer is full the oldest gestures are dropped, so recording never allocates.
+ * <p>
+ * Coordinates are kept to 1/8 of a pixel, times and velocities to whole units.
+ */
+public final class SwipeGestureTrace {
+
+    // Leading byte of exported traces, bumped whenever the encoding changes
+    private static final int FORMAT_VERSION = 1;
+    private static final float COORDINATE_SCALE = 8f;
+    // Two header bytes, a time and three coordinates or velocities at worst
+    private static final int MAX_RECORD_SIZE = 2 + 10 + 3 * 5;
+
+    private final byte[] mBuffer;
+    private final byte[] mScratch = new byte[MAX_RECORD_SIZE];
+    private int mHead;
+    private int mSize;
+
+    // Whether the gesture in progress is being recorded, it is not once its down was dropped
+    private boolean mInGesture;
+    private long mLastTime;
+    private int mLastX;
+    private int mLastY;
+
+    /**
+     * @param capacity size of the ring buffer in bytes
+     */
+    public SwipeGestureTrace(int capacity) {
+        mBuffer = new byte[Math.max(capacity, MAX_RECORD_SIZE)];
+    }
+
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+        mInGesture = false;
+    }
+
+    /**
+     * Appends one sample in the form taken by {@link SwipeGestureStateMachine#onTouchEvent}.
+     *
+     * @param velocity release velocity in pixels per second, only stored for up and cancel
+     */
+    public void record(int action, long eventTime, int pointerId, float x, float y, float velocity) {
+        final boolean down = action == SwipeGestureStateMachine.ACTION_DOWN;
+        if (down) {
+            mInGesture = true;
+        } else if (!mInGesture) {
+            return;
+        }
+        final int qx = Math.round(x * COORDINATE_SCALE);
+        final int qy = Math.round(y * COORDINATE_SCALE);
+        int length = 0;
+        mScratch[length++] = (byte) action;
+        mScratch[length++] = (byte) pointerId;
+        length = writeVarLong(mScratch, length, zigZag(down ? eventTime : eventTime - mLastTime));
+        length = writeVarLong(mScratch, length, zigZag(down ? qx : qx - mLastX));
+        length = writeVarLong(mScratch, length, zigZag(down ? qy : qy - mLastY));
+        if (hasVelocity(action)) {
+            length = writeVarLong(mScratch, length, zigZag(Math.round(velocity)));
+        }
+        while (mBuffer.length - mSize < length) {
+            dropOldestGesture();
+            if (mSize == 0 && !down) {
+                // The gesture in progress lost its down, so the rest of it can't be decoded
+                mInGesture = false;
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            mBuffer[(mHead + mSize++) % mBuffer.length] = mScratch[i];
+        }
+        mLastTime = eventTime;
+        mLastX = qx;
+        mLastY = qy;
+    }
+
+    private void dropOldestGesture() {
+        // The head always holds a down; skip it and everything up to the next one
+        do {
+            final int action = mBuffer[mHead];
+            skip(2);
+            skipVarLongs(hasVelocity(action) ? 4 : 3);
+        } while (mSize > 0 && mBuffer[mHead] != SwipeGestureStateMachine.ACTION_DOWN);
+    }
+
+    private void skip(int count) {
+        mHead = (mHead + count) % mBuffer.length;
+        mSize -= count;
+    }
+
+    private void skipVarLongs(int count) {
+        for (int i = 0; i < count; i++) {
+            while ((mBuffer[mHead] & 0x80) != 0) {
+                skip(1);
+            }
+            skip(1);
+        }
+    }
+
+    /**
+     * @return the recorded gestures, oldest first, in the format read by {@link #replay}
+     */
+    public byte[] toByteArray() {
+        final byte[] trace = new byte[mSize + 1];
+        trace[0] = FORMAT_VERSION;
+        for (int i = 0; i < mSize; i++) {
+            trace[i + 1] = mBuffer[(mHead + i) % mBuffer.length];
+        }
+        return trace;
+    }
+
+    /**
+     * Decodes a trace exported by {@link #toByteArray()} and hands its samples to the receiver
+     * in the order they were recorded.
+     */
+    public static void replay(byte[] trace, Receiver receiver) {
+        if (trace.length == 0 || trace[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported gesture trace format");
+        }
+        final long[] value = new long[1];
+        long time = 0;
+        int x = 0;
+        int y = 0;
+        int position = 1;
+        while (position < trace.length) {
+            final int action = trace[position++];
+            final int pointerId = trace[position++];
+            final boolean down = action == SwipeGestureStateMachine.ACTION_DOWN;
+            position = readVarLong(trace, position, value);
+            time = down ? unZigZag(value[0]) : time + unZigZag(value[0]);
+            position = readVarLong(trace, position, value);
+            x = (int) (down ? unZigZag(value[0]) : x + unZigZag(value[0]));
+            position = readVarLong(trace, position, value);
+            y = (int) (down ? unZigZag(value[0]) : y + unZigZag(value[0]));
+            float velocity = 0;
+            if (hasVelocity(action)) {
+                position = readVarLong(trace, position, value);
+                velocity = unZigZag(value[0]);
+            }
+            receiver.onTouchEvent(action, time, pointerId, x / COORDINATE_SCALE, y / COORDINATE_SCALE, velocity);
+        }
+    }
+
+    private static boolean hasVelocity(int action) {
+        return action == SwipeGestureStateMachine.ACTION_UP || action == SwipeGestureStateMachine.ACTION_CANCEL;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarLong(byte[] buffer, int position, long[] value) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[position++];
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        value[0] = result;
+        return position;
+    }
+
+    /**
+     * Receives the samples of a replayed trace.
+     */
+    public interface Receiver {
+        void onTouchEvent(int action, long eventTime, int pointerId, float x, float y, float velocity);
+    }
+}
@@ -0,0 +1,44 @@
+package com.raistlin.swipeactions;
+
+/**
+ * Default {@link DragPhysics}: the indicator follows the finger up to the trigger point
+ * and then slows down along a slingshot tension curve, as in SwipeRefreshLayout.
+ */
+public class TensionDragPhysics implements DragPhysics {
+
+    private static final float DEFAULT_DRAG_RATE = .5f;
+
+    private final float mDragRate;
+    private float mTotalDragDistance;
+    private float mSlingshotDistance;
+
+    public TensionDragPhysics() {
+        this(DEFAULT_DRAG_RATE);
+    }
+
+    public TensionDragPhysics(float dragRate) {
+        mDragRate = dragRate;
+    }
+
+    @Override
+    public void configure(float triggerDistance, float finalOffset) {
+        mTotalDragDistance = triggerDistance;
+        mSlingshotDistance = finalOffset;
+    }
+
+    @Override
+    public float getOverscroll(float dragDistance) {
+        return dragDistance * mDragRate;
+    }
+
+    @Override
+    public float getIndicatorOffset(float overscroll) {
+        float dragPercent = Math.min(1f, Math.abs(overscroll / mTotalDragDistance));
+        float extraOS = Math.abs(overscroll) - mTotalDragDistance;
+        float slingshotDist = mSlingshotDistance;
+        float tensionSlingshotPercent = Math.max(0, Math.min(extraOS, slingshotDist * 2) / slingshotDist);
+        float tensionPercent = (float) ((tensionSlingshotPercent / 4) - Math.pow((tensionSlingshotPercent / 4), 2)) * 2f;
+        float extraMove = (slingshotDist) * tensionPercent * 2;
+        return (slingshotDist * dragPercent) + extraMove;
+    }
+}
@@ -0,0 +1,68 @@
+package com.raistlin.swipeactions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the default tension curve and the lookup table sampling it.
+ */
+public class DragPhysicsTest {
+
+    private static final float TRIGGER_DISTANCE = 64;
+    private static final float FINAL_OFFSET = 64;
+
+    @Test
+    public void tensionFollowsFingerUpToTrigger() {
+        final TensionDragPhysics physics = new TensionDragPhysics();
+        physics.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        assertEquals(50, physics.getOverscroll(100), 0);
+        assertEquals(0, physics.getIndicatorOffset(0), 0);
+        assertEquals(FINAL_OFFSET / 2, physics.getIndicatorOffset(TRIGGER_DISTANCE / 2), 0.001f);
+        assertEquals(FINAL_OFFSET, physics.getIndicatorOffset(TRIGGER_DISTANCE), 0.001f);
+    }
+
+    @Test
+    public void tensionSlowsDownPastTrigger() {
+        final TensionDragPhysics physics = new TensionDragPhysics();
+        physics.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        float previous = physics.getIndicatorOffset(TRIGGER_DISTANCE);
+        float previousStep = Float.MAX_VALUE;
+        for (float overscroll = TRIGGER_DISTANCE + 8; overscroll <= TRIGGER_DISTANCE + FINAL_OFFSET * 2; overscroll += 8) {
+            final float offset = physics.getIndicatorOffset(overscroll);
+            final float step = offset - previous;
+            assertTrue("Moved back at " + overscroll, step > 0);
+            assertTrue("Sped up at " + overscroll, step < previousStep);
+            previous = offset;
+            previousStep = step;
+        }
+        // The slingshot adds at most the final offset again
+        assertEquals(FINAL_OFFSET * 2, physics.getIndicatorOffset(TRIGGER_DISTANCE + FINAL_OFFSET * 4), 0.001f);
+    }
+
+    @Test
+    public void lookupTableMatchesSource() {
+        final TensionDragPhysics source = new TensionDragPhysics();
+        final LookupTableDragPhysics table = new LookupTableDragPhysics(source, 64);
+        table.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        for (float overscroll = 0; overscroll <= TRIGGER_DISTANCE + FINAL_OFFSET * 2; overscroll += 0.5f) {
+            assertEquals("At " + overscroll, source.getIndicatorOffset(overscroll), table.getIndicatorOffset(overscroll), 0.1f);
+        }
+        assertEquals(source.getOverscroll(100), table.getOverscroll(100), 0);
+    }
+
+    @Test
+    public void lookupTableClampsOutsideRange() {
+        final LookupTableDragPhysics table = new LookupTableDragPhysics();
+        table.configure(TRIGGER_DISTANCE, FINAL_OFFSET);
+        assertEquals(table.getIndicatorOffset(0), table.getIndicatorOffset(-10), 0);
+        final float last = table.getIndicatorOffset(TRIGGER_DISTANCE + FINAL_OFFSET * 2);
+        assertEquals(last, table.getIndicatorOffset(TRIGGER_DISTANCE + FINAL_OFFSET * 10), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lookupTableNeedsTwoSamples() {
+        new LookupTableDragPhysics(new TensionDragPhysics(), 1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.raistlin.swipeactions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_CANCEL;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_DOWN;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_MOVE;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_UP;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Replays recorded traces and checks the decisions reported for them.
+ */
+public class SwipeGestureReplayerTest {
+
+    private static final int TOUCH_SLOP = 8;
+    private static final float TRIGGER_DISTANCE = 64;
+    private static final float FLING_VELOCITY = 1000;
+    private static final float Y = 100;
+
+    private SwipeGestureTrace mTrace;
+    private long mTime;
+    private final List<String> mDecisions = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mTrace = new SwipeGestureTrace(1024);
+    }
+
+    @Test
+    public void cancelledSwipeIsNotTriggered() {
+        swipe(100, 500, ACTION_CANCEL, 0);
+        replay();
+        assertEquals(decisions("1 started LEFT", "2 armed LEFT", "5 disarmed LEFT", "5 released LEFT"), mDecisions);
+    }
+
+    @Test
+    public void releasedSwipeIsTriggered() {
+        swipe(100, 500, ACTION_UP, 0);
+        replay();
+        assertEquals(decisions("1 started LEFT", "2 armed LEFT", "5 triggered LEFT"), mDecisions);
+    }
+
+    @Test
+    public void shortSwipeIsNotTriggered() {
+        swipe(100, 200, ACTION_UP, 0);
+        replay();
+        assertEquals(decisions("1 started LEFT", "5 released LEFT"), mDecisions);
+    }
+
+    @Test
+    public void flingTriggersShortSwipe() {
+        swipe(100, 200, ACTION_UP, FLING_VELOCITY);
+        replay();
+        assertEquals(decisions("1 started LEFT", "5 armed LEFT", "5 triggered LEFT"), mDecisions);
+    }
+
+    @Test
+    public void leftwardSwipeIsRight() {
+        swipe(500, 100, ACTION_UP, 0);
+        replay();
+        assertEquals(decisions("1 started RIGHT", "2 armed RIGHT", "5 triggered RIGHT"), mDecisions);
+    }
+
+    @Test
+    public void draggingBackDisarms() {
+        mTrace.record(ACTION_DOWN, 0, 0, 100, Y, 0);
+        mTrace.record(ACTION_MOVE, 1, 0, 300, Y, 0);
+        mTrace.record(ACTION_MOVE, 2, 0, 320, Y, 0);
+        mTrace.record(ACTION_MOVE, 3, 0, 150, Y, 0);
+        mTrace.record(ACTION_MOVE, 4, 0, 340, Y, 0);
+        mTrace.record(ACTION_MOVE, 5, 0, 150, Y, 0);
+        mTrace.record(ACTION_UP, 6, 0, 150, Y, 0);
+        replay();
+        assertEquals(decisions("1 started LEFT", "2 armed LEFT", "3 disarmed LEFT", "4 armed LEFT",
+                "5 disarmed LEFT", "6 released LEFT"), mDecisions);
+    }
+
+    @Test
+    public void gesturesAreReplayedInOrder() {
+        swipe(100, 500, ACTION_UP, 0);
+        swipe(500, 400, ACTION_UP, 0);
+        replay();
+        assertEquals(decisions("1 started LEFT", "2 armed LEFT", "5 triggered LEFT",
+                "11 started RIGHT", "15 released RIGHT"), mDecisions);
+    }
+
+    @Test
+    public void evictedGestureIsNotReplayed() {
+        // Room for a single swipe
+        mTrace = new SwipeGestureTrace(50);
+        swipe(100, 500, ACTION_UP, 0);
+        swipe(500, 100, ACTION_CANCEL, 0);
+        replay();
+        assertEquals(decisions("11 started RIGHT", "12 armed RIGHT", "15 disarmed RIGHT", "15 released RIGHT"), mDecisions);
+    }
+
+    /**
+     * Records a swipe from {@code from} to {@code to} in four moves, one per millisecond,
+     * ended by {@code endAction}. Each swipe starts ten milliseconds after the previous one.
+     */
+    private void swipe(float from, float to, int endAction, float velocity) {
+        mTrace.record(ACTION_DOWN, mTime, 0, from, Y, 0);
+        for (int i = 1; i <= 4; i++) {
+            mTrace.record(ACTION_MOVE, mTime + i, 0, from + (to - from) * i / 4, Y, 0);
+        }
+        mTrace.record(endAction, mTime + 5, 0, to, Y, velocity);
+        mTime += 10;
+    }
+
+    private void replay() {
+        final DragPhysics physics = new TensionDragPhysics();
+        physics.configure(TRIGGER_DISTANCE, TRIGGER_DISTANCE);
+        final SwipeGestureStateMachine gesture = new SwipeGestureStateMachine(TOUCH_SLOP, TRIGGER_DISTANCE, physics);
+        gesture.setFlingVelocity(FLING_VELOCITY);
+        SwipeGestureReplayer.replay(mTrace.toByteArray(), gesture, new SwipeGestureReplayer.Listener() {
+            @Override
+            public void onDragStarted(long eventTime, SwipeDirection direction) {
+                mDecisions.add(eventTime + " started " + direction);
+            }
+
+            @Override
+            public void onArmedChanged(long eventTime, SwipeDirection direction, boolean armed) {
+                mDecisions.add(eventTime + (armed ? " armed " : " disarmed ") + direction);
+            }
+
+            @Override
+            public void onReleased(long eventTime, SwipeDirection direction, boolean triggered) {
+                mDecisions.add(eventTime + (triggered ? " triggered " : " released ") + direction);
+            }
+        });
+    }
+
+    private static List<String> decisions(String... decisions) {
+        final List<String> list = new ArrayList<>();
+        for (String decision : decisions) {
+            list.add(decision);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,216 @@
+package com.raistlin.swipeactions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_CANCEL;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_DOWN;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_MOVE;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_POINTER_DOWN;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_POINTER_UP;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_UP;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.INVALID_POINTER;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.RESULT_CANCELLED;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.RESULT_DRAGGED;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.RESULT_DRAG_STARTED;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.RESULT_NONE;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.RESULT_RELEASED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the gesture state machine with primitive samples: touch slop, the 3:1 axis lock,
+ * direction selection, pointer switching and the release decision.
+ */
+public class SwipeGestureStateMachineTest {
+
+    private static final int TOUCH_SLOP = 8;
+    private static final float TRIGGER_DISTANCE = 64;
+    private static final float FLING_VELOCITY = 1000;
+    private static final float Y = 100;
+
+    private SwipeGestureStateMachine mGesture;
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        final DragPhysics physics = new TensionDragPhysics();
+        physics.configure(TRIGGER_DISTANCE, TRIGGER_DISTANCE);
+        mGesture = new SwipeGestureStateMachine(TOUCH_SLOP, TRIGGER_DISTANCE, physics);
+        mGesture.setFlingVelocity(FLING_VELOCITY);
+    }
+
+    @Test
+    public void movesWithinSlopDoNotDrag() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 100 + TOUCH_SLOP, Y));
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 100 - TOUCH_SLOP, Y));
+        assertFalse(mGesture.isDragging());
+        assertEquals(SwipeDirection.NONE, mGesture.getDirection());
+    }
+
+    @Test
+    public void dragStartsPastSlop() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        assertEquals(RESULT_DRAG_STARTED, feed(ACTION_MOVE, 0, 100 + TOUCH_SLOP + 1, Y));
+        assertTrue(mGesture.isDragging());
+        assertEquals(SwipeDirection.LEFT, mGesture.getDirection());
+        // Measured from the slop boundary, so the indicator does not jump
+        assertEquals(1, mGesture.getDragDistance(), 0);
+
+        assertEquals(RESULT_DRAGGED, feed(ACTION_MOVE, 0, 150, Y));
+        assertEquals(150 - 100 - TOUCH_SLOP, mGesture.getDragDistance(), 0);
+    }
+
+    @Test
+    public void leftwardDragSelectsRightDirection() {
+        feed(ACTION_DOWN, 0, 500, Y);
+        assertEquals(RESULT_DRAG_STARTED, feed(ACTION_MOVE, 0, 480, Y));
+        assertEquals(SwipeDirection.RIGHT, mGesture.getDirection());
+        feed(ACTION_MOVE, 0, 400, Y);
+        // Positive in the drag direction
+        assertEquals(500 - TOUCH_SLOP - 400, mGesture.getDragDistance(), 0);
+    }
+
+    @Test
+    public void axisLockRejectsDiagonalMoves() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        // Exactly 3:1 is not horizontal enough
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 130, Y + 10));
+        assertFalse(mGesture.isDragging());
+    }
+
+    @Test
+    public void verticalMovesMoveTheStartingPoint() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        feed(ACTION_MOVE, 0, 110, Y + 20);
+        // From the original point this is more than 3:1, from the replaced one it is within slop
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 110 + TOUCH_SLOP, Y + 20));
+        assertEquals(RESULT_DRAG_STARTED, feed(ACTION_MOVE, 0, 110 + TOUCH_SLOP + 1, Y + 20));
+    }
+
+    @Test
+    public void newPointerTakesOverDrag() {
+        startDrag();
+        feed(ACTION_POINTER_DOWN, 1, 300, Y);
+        assertEquals(1, mGesture.getActivePointerId());
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 400, Y));
+        assertEquals(RESULT_DRAGGED, feed(ACTION_MOVE, 1, 310, Y));
+    }
+
+    @Test
+    public void newPointerBeforeDragDoesNotTakeOver() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        feed(ACTION_POINTER_DOWN, 1, 300, Y);
+        assertEquals(0, mGesture.getActivePointerId());
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 1, 400, Y));
+        assertFalse(mGesture.isDragging());
+    }
+
+    @Test
+    public void activePointerUpHandsOverToLowestRemaining() {
+        startDrag();
+        feed(ACTION_POINTER_DOWN, 2, 300, Y);
+        feed(ACTION_POINTER_DOWN, 1, 300, Y);
+        assertEquals(1, mGesture.getActivePointerId());
+        feed(ACTION_POINTER_UP, 1, 300, Y);
+        assertEquals(0, mGesture.getActivePointerId());
+        feed(ACTION_POINTER_UP, 0, 200, Y);
+        assertEquals(2, mGesture.getActivePointerId());
+        assertEquals(RESULT_RELEASED, feed(ACTION_UP, 2, 300, Y));
+    }
+
+    @Test
+    public void inactivePointerUpKeepsActivePointer() {
+        startDrag();
+        feed(ACTION_POINTER_DOWN, 1, 300, Y);
+        feed(ACTION_POINTER_UP, 0, 200, Y);
+        assertEquals(1, mGesture.getActivePointerId());
+    }
+
+    @Test
+    public void lastPointerUpReleasesDrag() {
+        startDrag();
+        assertEquals(RESULT_RELEASED, feed(ACTION_UP, 0, 250, Y));
+        assertFalse(mGesture.isDragging());
+        assertEquals(INVALID_POINTER, mGesture.getActivePointerId());
+        // The release position is kept for the decision
+        assertEquals(250 - 100 - TOUCH_SLOP, mGesture.getDragDistance(), 0);
+    }
+
+    @Test
+    public void upWithoutDragIsNotRelease() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        feed(ACTION_MOVE, 0, 105, Y);
+        assertEquals(RESULT_NONE, feed(ACTION_UP, 0, 105, Y));
+    }
+
+    @Test
+    public void cancelPastTriggerIsNotRelease() {
+        startDrag();
+        feed(ACTION_MOVE, 0, 500, Y);
+        assertTrue(mGesture.isArmed(mGesture.getDragDistance()));
+        assertEquals(RESULT_CANCELLED, feed(ACTION_CANCEL, 0, 500, Y));
+        assertFalse(mGesture.isDragging());
+        assertEquals(INVALID_POINTER, mGesture.getActivePointerId());
+        // Nothing of the cancelled gesture is left to move
+        assertEquals(RESULT_NONE, feed(ACTION_MOVE, 0, 600, Y));
+        assertEquals(RESULT_NONE, feed(ACTION_UP, 0, 600, Y));
+    }
+
+    @Test
+    public void cancelWithoutDragIsIgnored() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        assertEquals(RESULT_NONE, feed(ACTION_CANCEL, INVALID_POINTER, 0, 0));
+        assertEquals(INVALID_POINTER, mGesture.getActivePointerId());
+    }
+
+    @Test
+    public void downResetsPreviousGesture() {
+        startDrag();
+        feed(ACTION_DOWN, 3, 500, Y);
+        assertFalse(mGesture.isDragging());
+        assertEquals(3, mGesture.getActivePointerId());
+        assertEquals(SwipeDirection.NONE, mGesture.getDirection());
+    }
+
+    @Test
+    public void releaseTriggersPastTriggerDistance() {
+        // The default physics halve the drag distance
+        final float trigger = TRIGGER_DISTANCE * 2;
+        assertFalse(mGesture.isArmed(trigger));
+        assertTrue(mGesture.isArmed(trigger + 1));
+        assertFalse(mGesture.shouldTrigger(trigger, 0));
+        assertTrue(mGesture.shouldTrigger(trigger + 1, 0));
+    }
+
+    @Test
+    public void flingTriggersShortOfTriggerDistance() {
+        assertTrue(mGesture.shouldTrigger(10, FLING_VELOCITY));
+        assertFalse(mGesture.shouldTrigger(10, FLING_VELOCITY - 1));
+        // Flinging back towards the start does not commit
+        assertFalse(mGesture.shouldTrigger(0, FLING_VELOCITY));
+        assertFalse(mGesture.shouldTrigger(-10, FLING_VELOCITY));
+
+        mGesture.setFlingVelocity(0);
+        assertFalse(mGesture.shouldTrigger(10, Float.MAX_VALUE));
+    }
+
+    @Test
+    public void dragPhysicsCanBeReplaced() {
+        final DragPhysics physics = new TensionDragPhysics(1f);
+        physics.configure(TRIGGER_DISTANCE, TRIGGER_DISTANCE);
+        mGesture.setDragPhysics(physics);
+        assertTrue(mGesture.isArmed(TRIGGER_DISTANCE + 1));
+    }
+
+    private void startDrag() {
+        feed(ACTION_DOWN, 0, 100, Y);
+        assertEquals(RESULT_DRAG_STARTED, feed(ACTION_MOVE, 0, 120, Y));
+    }
+
+    private int feed(int action, int pointerId, float x, float y) {
+        return mGesture.onTouchEvent(action, mTime++, pointerId, x, y);
+    }
+}
@@ -0,0 +1,246 @@
+package com.raistlin.swipeactions;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_CANCEL;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_DOWN;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_MOVE;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_POINTER_DOWN;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_POINTER_UP;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.ACTION_UP;
+import static com.raistlin.swipeactions.SwipeGestureStateMachine.INVALID_POINTER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records samples, exports them and replays the export: the round trip, eviction of whole
+ * gestures from the ring buffer, the largest records and wraparound.
+ */
+public class SwipeGestureTraceTest {
+
+    // Largest down and up records: header, ten byte time, five byte coordinates and velocity
+    private static final int MAX_DOWN_SIZE = 2 + 10 + 5 + 5;
+    private static final int MAX_UP_SIZE = MAX_DOWN_SIZE + 5;
+
+    @Test
+    public void roundTrip() {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(1024);
+        final List<Sample> samples = new ArrayList<>();
+        samples.add(new Sample(ACTION_DOWN, 1000, 0, 100, 50, 0));
+        samples.add(new Sample(ACTION_MOVE, 1016, 0, 120.5f, 49.25f, 0));
+        samples.add(new Sample(ACTION_POINTER_DOWN, 1020, 1, 400, 60, 0));
+        samples.add(new Sample(ACTION_MOVE, 1032, 1, 380.125f, 61, 0));
+        samples.add(new Sample(ACTION_POINTER_UP, 1040, 0, 90, 50, 0));
+        samples.add(new Sample(ACTION_UP, 1048, 1, 300, 62, -1250));
+        samples.add(new Sample(ACTION_DOWN, 5000, 0, 10, 10, 0));
+        samples.add(new Sample(ACTION_CANCEL, 5001, INVALID_POINTER, 0, 0, 0));
+        record(trace, samples);
+        assertEquals(samples, replay(trace));
+    }
+
+    @Test
+    public void coordinatesAreKeptToEighthOfPixel() {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(1024);
+        trace.record(ACTION_DOWN, 0, 0, 10.06f, -3.3f, 0);
+        trace.record(ACTION_UP, 1, 0, 10.2f, -3.3f, 99.6f);
+        final List<Sample> replayed = replay(trace);
+        assertEquals(new Sample(ACTION_DOWN, 0, 0, 10, -3.25f, 0), replayed.get(0));
+        // Rounded from the exact position, not from the previous rounded one
+        assertEquals(new Sample(ACTION_UP, 1, 0, 10.25f, -3.25f, 100), replayed.get(1));
+    }
+
+    @Test
+    public void samplesBeforeFirstDownAreIgnored() {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(1024);
+        trace.record(ACTION_MOVE, 0, 0, 10, 10, 0);
+        trace.record(ACTION_UP, 1, 0, 10, 10, 0);
+        assertEquals(0, replay(trace).size());
+    }
+
+    @Test
+    public void fullBufferDropsOldestGestures() {
+        final List<List<Sample>> gestures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            gestures.add(gesture(i * 1000, 4));
+        }
+        // Room for two of the later gestures, their absolute down times take the same bytes
+        final SwipeGestureTrace trace = new SwipeGestureTrace(size(gestures.get(1)) * 2 + 1);
+        for (List<Sample> gesture : gestures) {
+            record(trace, gesture);
+        }
+        final List<Sample> expected = new ArrayList<>(gestures.get(1));
+        expected.addAll(gestures.get(2));
+        assertEquals(expected, replay(trace));
+    }
+
+    @Test
+    public void gestureLargerThanBufferIsDropped() {
+        final List<Sample> first = gesture(0, 2);
+        final SwipeGestureTrace trace = new SwipeGestureTrace(size(first) + 3);
+        record(trace, first);
+        // Outgrows the buffer, pushing out the first gesture and then its own down
+        final List<Sample> outgrowing = gesture(1000, 20);
+        record(trace, outgrowing);
+        assertEquals(0, replay(trace).size());
+
+        // Recording resumes with the next gesture
+        final List<Sample> next = gesture(2000, 1);
+        record(trace, next);
+        assertEquals(next, replay(trace));
+    }
+
+    @Test
+    public void largestRecordsFitExactly() {
+        final List<Sample> extreme = new ArrayList<>();
+        // Coordinates a whole int range apart once scaled, the longest time delta and velocity
+        extreme.add(new Sample(ACTION_DOWN, Long.MIN_VALUE, 127, -(1 << 27), 1 << 27, 0));
+        extreme.add(new Sample(ACTION_UP, -1, 127, 1 << 27, -(1 << 27), Integer.MIN_VALUE));
+
+        final SwipeGestureTrace exact = new SwipeGestureTrace(MAX_DOWN_SIZE + MAX_UP_SIZE);
+        record(exact, extreme);
+        assertEquals(extreme, replay(exact));
+        assertEquals(1 + MAX_DOWN_SIZE + MAX_UP_SIZE, exact.toByteArray().length);
+
+        final SwipeGestureTrace tooSmall = new SwipeGestureTrace(MAX_DOWN_SIZE + MAX_UP_SIZE - 1);
+        record(tooSmall, extreme);
+        assertEquals(0, replay(tooSmall).size());
+    }
+
+    @Test
+    public void capacityHoldsAtLeastOneRecord() {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(0);
+        final Sample down = new Sample(ACTION_DOWN, Long.MAX_VALUE, 0, 1 << 27, 1 << 27, 0);
+        record(trace, single(down));
+        assertEquals(single(down), replay(trace));
+    }
+
+    @Test
+    public void wrapsAroundBuffer() {
+        final int capacity = 97;
+        final SwipeGestureTrace trace = new SwipeGestureTrace(capacity);
+        final List<List<Sample>> recorded = new ArrayList<>();
+        long time = 0;
+        for (int i = 0; i < 200; i++) {
+            final List<Sample> gesture = gesture(time, 1 + i % 5);
+            time += 1000;
+            record(trace, gesture);
+            recorded.add(gesture);
+
+            // The newest gestures that fit, oldest first
+            final List<Sample> expected = new ArrayList<>();
+            int size = 0;
+            for (int g = recorded.size() - 1; g >= 0 && size + size(recorded.get(g)) <= capacity; g--) {
+                size += size(recorded.get(g));
+                expected.addAll(0, recorded.get(g));
+            }
+            assertEquals("After gesture " + i, expected, replay(trace));
+        }
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(1024);
+        trace.record(ACTION_DOWN, 0, 0, 10, 10, 0);
+        trace.clear();
+        // Not a gesture of its own, its down was cleared
+        trace.record(ACTION_UP, 1, 0, 10, 10, 0);
+        assertEquals(1, trace.toByteArray().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownFormat() {
+        SwipeGestureTrace.replay(new byte[]{0}, new SwipeGestureTrace.Receiver() {
+            @Override
+            public void onTouchEvent(int action, long eventTime, int pointerId, float x, float y, float velocity) {
+            }
+        });
+    }
+
+    /**
+     * @return a down, {@code moves} moves and an up, with small deltas as in a real swipe
+     */
+    private static List<Sample> gesture(long time, int moves) {
+        final List<Sample> gesture = new ArrayList<>();
+        gesture.add(new Sample(ACTION_DOWN, time, 0, 100, 40, 0));
+        for (int i = 1; i <= moves; i++) {
+            gesture.add(new Sample(ACTION_MOVE, time + 16 * i, 0, 100 + 10.5f * i, 40 + i / 8f, 0));
+        }
+        gesture.add(new Sample(ACTION_UP, time + 16 * (moves + 1), 0, 100 + 10.5f * moves, 40, 800));
+        return gesture;
+    }
+
+    /**
+     * @return bytes taken by the gesture in the buffer
+     */
+    private static int size(List<Sample> gesture) {
+        final SwipeGestureTrace trace = new SwipeGestureTrace(1024);
+        record(trace, gesture);
+        return trace.toByteArray().length - 1;
+    }
+
+    private static List<Sample> single(Sample sample) {
+        final List<Sample> samples = new ArrayList<>();
+        samples.add(sample);
+        return samples;
+    }
+
+    private static void record(SwipeGestureTrace trace, List<Sample> samples) {
+        for (Sample sample : samples) {
+            trace.record(sample.mAction, sample.mTime, sample.mPointerId, sample.mX, sample.mY, sample.mVelocity);
+        }
+    }
+
+    private static List<Sample> replay(SwipeGestureTrace trace) {
+        final List<Sample> samples = new ArrayList<>();
+        SwipeGestureTrace.replay(trace.toByteArray(), new SwipeGestureTrace.Receiver() {
+            @Override
+            public void onTouchEvent(int action, long eventTime, int pointerId, float x, float y, float velocity) {
+                samples.add(new Sample(action, eventTime, pointerId, x, y, velocity));
+            }
+        });
+        assertTrue("Replay does not start with a down", samples.isEmpty() || samples.get(0).mAction == ACTION_DOWN);
+        return samples;
+    }
+
+    private static final class Sample {
+
+        final int mAction;
+        final long mTime;
+        final int mPointerId;
+        final float mX;
+        final float mY;
+        final float mVelocity;
+
+        Sample(int action, long time, int pointerId, float x, float y, float velocity) {
+            mAction = action;
+            mTime = time;
+            mPointerId = pointerId;
+            mX = x;
+            mY = y;
+            mVelocity = velocity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Sample)) {
+                return false;
+            }
+            final Sample other = (Sample) o;
+            return mAction == other.mAction && mTime == other.mTime && mPointerId == other.mPointerId
+                    && mX == other.mX && mY == other.mY && mVelocity == other.mVelocity;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) mTime;
+        }
+
+        @Override
+        public String toString() {
+            return mAction + "@" + mTime + " #" + mPointerId + " " + mX + "," + mY + " v" + mVelocity;
+        }
+    }
+}